@@ -0,0 +1,112 @@
+#!/usr/bin/env bash
+#
+# Access log throughput benchmark
+#
+# Starts the backend once per mode and drives two endpoints with a real HTTP
+# load generator (wrk, or ab when wrk is not installed), reporting requests
+# per second and p99 latency for each:
+#
+#   GET /api/products                    served locally, no Stripe call
+#   GET /api/checkout-session/{id}       one traced Stripe call per request,
+#                                        answered by scripts/stripe-stub.py
+#
+# Modes:
+#   off           access log filter disabled
+#   sampled       default sample rates, with the session lookup at 1.0 so
+#                 one endpoint pays the full cost of formatting and writing
+#   full          every request logged (sample rate 1.0)
+#   sync-debug    access log off, DEBUG logging for org.springframework.web
+#                 and com.stripe.poc (the previous default)
+#
+# Usage: scripts/access-log-benchmark.sh [seconds] [connections] [port]
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+DURATION="${1:-20}"
+CONNECTIONS="${2:-32}"
+PORT="${3:-18082}"
+STUB_PORT=12115
+LOOKUP_PATTERN="[/api/checkout-session/{sessionId}]"
+
+if command -v wrk > /dev/null; then
+    GENERATOR=wrk
+elif command -v ab > /dev/null; then
+    GENERATOR=ab
+else
+    echo "Install wrk or ab (apache2-utils) to run this benchmark" >&2
+    exit 1
+fi
+
+mvn -B -q package -DskipTests
+JAR="$(ls target/stripe-poc-backend-*.jar | grep -v original | head -n 1)"
+
+if curl -s -o /dev/null "http://localhost:$PORT"; then
+    echo "Port $PORT is already in use" >&2
+    exit 1
+fi
+
+python3 scripts/stripe-stub.py --port "$STUB_PORT" > /dev/null 2>&1 &
+STUB_PID=$!
+APP_PID=""
+cleanup() {
+    kill "$STUB_PID" ${APP_PID:+"$APP_PID"} 2> /dev/null || true
+}
+trap cleanup EXIT
+
+mode_args() {
+    case "$1" in
+        off)        echo "--app.access-log.enabled=false" ;;
+        sampled)    echo "--app.access-log.sample-rates.$LOOKUP_PATTERN=1.0" ;;
+        full)       echo "--app.access-log.sample-rates.[/api/products]=1.0 --app.access-log.sample-rates.$LOOKUP_PATTERN=1.0 --app.access-log.default-sample-rate=1.0" ;;
+        sync-debug) echo "--app.access-log.enabled=false --logging.level.org.springframework.web=DEBUG --logging.level.com.stripe.poc=DEBUG" ;;
+    esac
+}
+
+# Prints "<req/s> <p99 ms>"
+drive() {
+    local url="$1" seconds="$2"
+    case "$GENERATOR" in
+        wrk)
+            wrk -t 4 -c "$CONNECTIONS" -d "${seconds}s" --latency "$url" | awk '
+                /Requests\/sec:/ { rps = $2 }
+                $1 == "99%" { v = $2; unit = v; gsub(/[0-9.]/, "", unit); sub(/[a-z]+$/, "", v)
+                              p99 = (unit == "s") ? v * 1000 : (unit == "us") ? v / 1000 : v }
+                END { printf "%d %.1f\n", rps, p99 }' ;;
+        ab)
+            ab -q -k -t "$seconds" -n 100000000 -c "$CONNECTIONS" "$url" | awk '
+                /^Requests per second:/ { rps = $4 }
+                $1 == "99%" { p99 = $2 }
+                END { printf "%d %.1f\n", rps, p99 }' ;;
+    esac
+}
+
+printf '%-12s %-22s %10s %10s\n' "mode" "endpoint" "req/s" "p99 (ms)"
+for mode in off sampled full sync-debug; do
+    # shellcheck disable=SC2046
+    STRIPE_API_BASE="http://127.0.0.1:$STUB_PORT" java -jar "$JAR" --server.port="$PORT" \
+        --app.admission.enabled=false $(mode_args "$mode") > target/access-log-benchmark.log 2>&1 &
+    APP_PID=$!
+    for _ in $(seq 1 120); do
+        if curl -sf "http://localhost:$PORT/actuator/health/readiness" > /dev/null; then
+            break
+        fi
+        sleep 0.5
+    done
+    curl -sf "http://localhost:$PORT/actuator/health/readiness" > /dev/null || {
+        echo "Backend did not become ready in $mode mode, see target/access-log-benchmark.log" >&2
+        exit 1
+    }
+
+    for endpoint in products checkout-session/cs_test_benchmark; do
+        url="http://localhost:$PORT/api/$endpoint"
+        drive "$url" 5 > /dev/null # Warm-up pass so JIT compilation is not measured
+        read -r rps p99 < <(drive "$url" "$DURATION")
+        printf '%-12s %-22s %10s %10s\n' "$mode" "${endpoint%%/*}" "$rps" "$p99"
+    done
+
+    kill -TERM "$APP_PID"
+    wait "$APP_PID" 2> /dev/null || true
+    APP_PID=""
+done
@@ -0,0 +1,138 @@
+#!/usr/bin/env bash
+#
+# Admission control overload check
+#
+# Runs the backend against scripts/stripe-stub.py with a slow upstream and a
+# deliberately small worker pool, then fires an admin burst followed by a
+# checkout burst at the same time. Checkout must be served in full while
+# admin is shed with 503s, and the process must stay responsive.
+#
+# Usage: scripts/admission-overload.sh [admin-requests] [checkout-requests] [stripe-delay-ms]
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+ADMIN_REQUESTS="${1:-120}"
+CHECKOUT_REQUESTS="${2:-30}"
+DELAY_MS="${3:-1000}"
+PORT=18083
+STUB_PORT=12112
+
+mvn -B -q package -DskipTests
+JAR="$(ls target/stripe-poc-backend-*.jar | grep -v original | head -n 1)"
+
+if curl -s -o /dev/null "http://localhost:$PORT" || curl -s -o /dev/null "http://localhost:$STUB_PORT"; then
+    echo "Port $PORT or $STUB_PORT is already in use" >&2
+    exit 1
+fi
+
+python3 scripts/stripe-stub.py --port "$STUB_PORT" --delay-ms "$DELAY_MS" > /dev/null 2>&1 &
+STUB_PID=$!
+APP_PID=""
+cleanup() {
+    kill "$STUB_PID" ${APP_PID:+"$APP_PID"} 2> /dev/null || true
+}
+trap cleanup EXIT
+
+# 40 workers: checkout may use all of them, lookups and admin must leave 10 and 20 free
+STRIPE_API_BASE="http://127.0.0.1:$STUB_PORT" java -jar "$JAR" \
+    --server.port="$PORT" \
+    --server.tomcat.threads.max=40 \
+    --app.admission.global-limit=30 \
+    --app.admission.checkout.limit=20 \
+    --app.admission.checkout.queue-capacity=20 \
+    --app.admission.checkout.max-wait-ms=10000 \
+    --app.admission.lookup.worker-headroom=10 \
+    --app.admission.admin.limit=4 \
+    --app.admission.admin.queue-capacity=4 \
+    --app.admission.admin.worker-headroom=20 \
+    --app.access-log.enabled=false \
+    --management.endpoints.web.exposure.include=health,metrics > target/admission-overload.log 2>&1 &
+APP_PID=$!
+
+for _ in $(seq 1 120); do
+    if curl -sf "http://localhost:$PORT/actuator/health/readiness" > /dev/null; then
+        break
+    fi
+    sleep 0.5
+done
+curl -sf "http://localhost:$PORT/actuator/health/readiness" > /dev/null || {
+    echo "Backend did not become ready, see target/admission-overload.log" >&2
+    exit 1
+}
+
+PRICE_ID="$(curl -s "http://localhost:$PORT/api/products" | grep -o '"stripePriceId":"[^"]*"' | head -n 1 | cut -d'"' -f4)"
+
+python3 - "$PORT" "$ADMIN_REQUESTS" "$CHECKOUT_REQUESTS" "$PRICE_ID" <<'EOF'
+import collections
+import json
+import sys
+import threading
+import time
+import urllib.error
+import urllib.request
+
+port, admin_requests, checkout_requests, price_id = sys.argv[1], int(sys.argv[2]), int(sys.argv[3]), sys.argv[4]
+base = "http://localhost:%s/api" % port
+codes = {"admin": collections.Counter(), "checkout": collections.Counter()}
+latencies = {"admin": [], "checkout": []}
+lock = threading.Lock()
+
+
+def call(kind, request):
+    start = time.monotonic()
+    try:
+        with urllib.request.urlopen(request, timeout=60) as response:
+            code = response.status
+    except urllib.error.HTTPError as e:
+        code = e.code
+    except OSError:
+        code = "conn-error"
+    with lock:
+        codes[kind][code] += 1
+        latencies[kind].append(time.monotonic() - start)
+
+
+def admin():
+    call("admin", urllib.request.Request(base + "/purchases/sessions"))
+
+
+def checkout(i):
+    body = json.dumps({"priceId": price_id, "customerEmail": "load%d@example.com" % i}).encode()
+    call("checkout", urllib.request.Request(base + "/create-checkout-session", data=body,
+                                            headers={"Content-Type": "application/json"}))
+
+
+threads = [threading.Thread(target=admin) for _ in range(admin_requests)]
+for thread in threads:
+    thread.start()
+time.sleep(0.2)  # Admin gets there first and would hold every worker without headroom
+checkout_threads = [threading.Thread(target=checkout, args=(i,)) for i in range(checkout_requests)]
+for thread in checkout_threads:
+    thread.start()
+for thread in threads + checkout_threads:
+    thread.join()
+
+for kind in ("checkout", "admin"):
+    times = sorted(latencies[kind])
+    print("%-9s %s  p50=%.2fs max=%.2fs" % (kind, dict(codes[kind]), times[len(times) // 2], times[-1]))
+
+failures = []
+if codes["checkout"][200] != checkout_requests:
+    failures.append("checkout requests were not all served")
+if codes["admin"][503] == 0:
+    failures.append("admin was never shed")
+if failures:
+    print("FAIL: " + "; ".join(failures))
+    sys.exit(1)
+print("OK: checkout fully served while admin was shed")
+EOF
+
+echo "Admission metrics:"
+for metric in admission.limit admission.rejected; do
+    for class in checkout admin; do
+        printf '  %s{class=%s} ' "$metric" "$class"
+        curl -s "http://localhost:$PORT/actuator/metrics/$metric?tag=class:$class" | grep -o '"value":[0-9.]*'
+    done
+done
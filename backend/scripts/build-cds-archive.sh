@@ -0,0 +1,81 @@
+#!/usr/bin/env bash
+#
+# Build the fast-start layout with an AppCDS archive
+#
+# Packages the backend, unpacks the Spring Boot jar into a plain classpath
+# (AppCDS cannot archive classes loaded from nested jars), then performs a
+# training run with the faststart profile and dumps the loaded classes at exit.
+# Training talks to scripts/stripe-stub.py so the Stripe request path is
+# exercised end to end without credentials.
+#
+# Output: target/faststart/{app.jar,lib/,classpath.txt,app.jsa}
+# Requires JDK 13+ for -XX:ArchiveClassesAtExit; the archive only works with
+# the exact JDK build that created it, so build it as part of the image.
+#
+# Usage: scripts/build-cds-archive.sh [training-port]
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+TRAINING_PORT="${1:-18080}"
+STUB_PORT=12113
+OUT="target/faststart"
+
+mvn -B -q package -DskipTests
+
+JAR="$(ls target/stripe-poc-backend-*.jar | grep -v original | head -n 1)"
+rm -rf "$OUT"
+mkdir -p "$OUT/unpacked"
+(cd "$OUT/unpacked" && jar -xf "../../../$JAR")
+(cd "$OUT/unpacked/BOOT-INF/classes" && jar -cf ../../../app.jar .)
+mv "$OUT/unpacked/BOOT-INF/lib" "$OUT/lib"
+rm -rf "$OUT/unpacked"
+
+# The classpath must be identical when the archive is used, so pin the order
+(cd "$OUT" && { printf 'app.jar'; for lib in $(ls lib/*.jar | sort); do printf ':%s' "$lib"; done; echo; } > classpath.txt)
+
+python3 scripts/stripe-stub.py --port "$STUB_PORT" > /dev/null 2>&1 &
+STUB_PID=$!
+trap 'kill "$STUB_PID" 2> /dev/null || true' EXIT
+
+echo "Training run on port $TRAINING_PORT..."
+cd "$OUT"
+STRIPE_API_BASE="http://127.0.0.1:$STUB_PORT" java -XX:ArchiveClassesAtExit=app.jsa \
+     -cp "$(cat classpath.txt)" \
+     com.stripe.poc.StripeApplication \
+     --spring.profiles.active=faststart \
+     --server.port="$TRAINING_PORT" > training.log 2>&1 &
+PID=$!
+
+for _ in $(seq 1 120); do
+    if curl -sf "http://localhost:$TRAINING_PORT/actuator/health/readiness" > /dev/null; then
+        break
+    fi
+    sleep 0.5
+done
+
+# Exercise the request paths so their classes end up in the archive too; the
+# checkout must use a catalog price or it is rejected before Stripe is called
+BASE="http://localhost:$TRAINING_PORT/api"
+PRICE_ID="$(curl -s "$BASE/products" | grep -o '"stripePriceId":"[^"]*"' | head -n 1 | cut -d'"' -f4 || true)"
+SESSION_ID="$(curl -s -X POST "$BASE/create-checkout-session" \
+     -H 'Content-Type: application/json' \
+     -d "{\"priceId\":\"$PRICE_ID\",\"customerEmail\":\"training@example.com\"}" \
+     | grep -o '"sessionId":"[^"]*"' | cut -d'"' -f4 || true)"
+if [ -z "$SESSION_ID" ]; then
+    echo "Training checkout failed, see $OUT/training.log" >&2
+fi
+curl -s "$BASE/checkout-session/$SESSION_ID" > /dev/null || true
+curl -s -X POST "$BASE/checkout-sessions/status" \
+     -H 'Content-Type: application/json' \
+     -d "{\"sessionIds\":[\"$SESSION_ID\"]}" > /dev/null || true
+
+kill -TERM "$PID"
+wait "$PID" || true
+
+if [ ! -f app.jsa ]; then
+    echo "Training run did not produce app.jsa, see $OUT/training.log" >&2
+    exit 1
+fi
+echo "Built $OUT/app.jsa"
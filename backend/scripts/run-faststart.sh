@@ -0,0 +1,16 @@
+#!/usr/bin/env bash
+#
+# Start the backend in fast-start mode: AppCDS archive, lazy beans and the
+# faststart profile. Run scripts/build-cds-archive.sh first.
+#
+# Usage: scripts/run-faststart.sh [spring-boot-args...]
+
+set -euo pipefail
+
+cd "$(dirname "$0")/../target/faststart"
+
+exec java -XX:SharedArchiveFile=app.jsa \
+     -cp "$(cat classpath.txt)" \
+     com.stripe.poc.StripeApplication \
+     --spring.profiles.active=faststart \
+     "$@"
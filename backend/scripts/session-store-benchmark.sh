@@ -0,0 +1,24 @@
+#!/usr/bin/env bash
+#
+# Write-throughput benchmark for the sharded session store
+#
+# Runs the JMH benchmark in src/test/java (SessionStateStoreBenchmark) with
+# the production listeners attached, comparing a single shard (one global
+# lock) with the default shard count at 1, 2, 4 and 8 writer threads.
+# Correctness under concurrency is covered by SessionStateStoreStressTest,
+# which runs with the regular test suite.
+#
+# Usage: scripts/session-store-benchmark.sh [extra JMH options]
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+mvn -B -q test-compile dependency:build-classpath \
+    -Dmdep.includeScope=test -Dmdep.outputFile=target/test-classpath.txt
+
+for threads in 1 2 4 8; do
+    java -cp "target/test-classes:target/classes:$(cat target/test-classpath.txt)" \
+        org.openjdk.jmh.Main SessionStateStoreBenchmark -t "$threads" -rf text -rff "target/jmh-t$threads.txt" "$@" \
+        | grep -E '^(Benchmark|SessionStateStoreBenchmark)'
+done
@@ -0,0 +1,96 @@
+#!/usr/bin/env bash
+#
+# Reproducible startup benchmark
+#
+# Starts the backend repeatedly in each mode and reports the median time from
+# process launch to readiness (/actuator/health/readiness UP, i.e. after the
+# startup warm-up), which is when a load balancer starts sending traffic.
+# The first GET /api/products reply is shown for reference only: it can
+# arrive while the instance is still warming up and not yet taking traffic.
+#
+# The backend talks to scripts/stripe-stub.py so the warm-up's Stripe calls
+# do not depend on network latency.
+#
+# Modes:
+#   default         java -jar with the default profile
+#   faststart       unpacked classpath + faststart profile, no CDS
+#   faststart-cds   as above with the AppCDS archive (scripts/run-faststart.sh)
+#
+# Usage: scripts/startup-benchmark.sh [runs] [port]
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-5}"
+PORT="${2:-18081}"
+STUB_PORT=12114
+
+if [ ! -f target/faststart/app.jsa ]; then
+    scripts/build-cds-archive.sh
+fi
+JAR="$(ls target/stripe-poc-backend-*.jar | grep -v original | head -n 1)"
+
+now_ms() {
+    date +%s%3N
+}
+
+wait_for() {
+    local url="$1"
+    local deadline=$(( $(now_ms) + 120000 ))
+    until curl -sf "$url" > /dev/null; do
+        if [ "$(now_ms)" -gt "$deadline" ]; then
+            echo "Timed out waiting for $url" >&2
+            exit 1
+        fi
+        sleep 0.02
+    done
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+# Runs in a background subshell; exec so the recorded PID is the JVM itself
+launch() {
+    case "$1" in
+        default)
+            exec java -jar "$JAR" --server.port="$PORT" ;;
+        faststart)
+            cd target/faststart
+            exec java -cp "$(cat classpath.txt)" \
+                com.stripe.poc.StripeApplication --spring.profiles.active=faststart --server.port="$PORT" ;;
+        faststart-cds)
+            exec scripts/run-faststart.sh --server.port="$PORT" ;;
+    esac
+}
+
+if curl -s "http://localhost:$PORT" > /dev/null; then
+    echo "Port $PORT is already in use" >&2
+    exit 1
+fi
+
+python3 scripts/stripe-stub.py --port "$STUB_PORT" > /dev/null 2>&1 &
+STUB_PID=$!
+trap 'kill "$STUB_PID" 2> /dev/null || true' EXIT
+export STRIPE_API_BASE="http://127.0.0.1:$STUB_PORT"
+
+printf '%-15s %22s %28s\n' "mode" "time to ready (ms)" "(first response, ms)"
+for mode in default faststart faststart-cds; do
+    first_times=()
+    ready_times=()
+    for _ in $(seq 1 "$RUNS"); do
+        start=$(now_ms)
+        launch "$mode" > /dev/null 2>&1 &
+        pid=$!
+        wait_for "http://localhost:$PORT/api/products"
+        first_times+=($(( $(now_ms) - start )))
+        wait_for "http://localhost:$PORT/actuator/health/readiness"
+        ready_times+=($(( $(now_ms) - start )))
+        kill -TERM "$pid"
+        wait "$pid" 2> /dev/null || true
+    done
+    printf '%-15s %22s %28s\n' "$mode" \
+        "$(printf '%s\n' "${ready_times[@]}" | median)" \
+        "($(printf '%s\n' "${first_times[@]}" | median))"
+done
@@ -0,0 +1,118 @@
+#!/usr/bin/env python3
+#
+# Minimal local stand-in for the Stripe API, for load and overload tests
+#
+# Serves just enough of the API for the backend: price retrieval, checkout
+# session create/retrieve/list. Every response is delayed by --delay-ms to
+# model a slow upstream. Any cs_ ID can be retrieved, so lookups can be
+# benchmarked without creating sessions first.
+#
+# Point the backend at it with STRIPE_API_BASE=http://127.0.0.1:<port>.
+#
+# Usage: scripts/stripe-stub.py [--port 12111] [--delay-ms 0]
+
+import argparse
+import itertools
+import json
+import threading
+import time
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+from urllib.parse import parse_qs, urlparse
+
+ids = itertools.count(1)
+sessions = {}
+sessions_lock = threading.Lock()
+
+
+def session(session_id, created=None, email=None, price_amount=2900):
+    return {
+        "id": session_id,
+        "object": "checkout.session",
+        "status": "open",
+        "payment_status": "unpaid",
+        "mode": "payment",
+        "url": "https://checkout.stripe.com/c/pay/" + session_id,
+        "amount_total": price_amount,
+        "currency": "usd",
+        "created": created or int(time.time()),
+        "customer_email": email,
+        "metadata": {},
+    }
+
+
+class Handler(BaseHTTPRequestHandler):
+    protocol_version = "HTTP/1.1"
+    delay = 0.0
+
+    def log_message(self, *args):
+        pass
+
+    def reply(self, status, body):
+        payload = json.dumps(body).encode()
+        self.send_response(status)
+        self.send_header("Content-Type", "application/json")
+        self.send_header("Content-Length", str(len(payload)))
+        self.send_header("Request-Id", "req_stub")
+        self.end_headers()
+        self.wfile.write(payload)
+
+    def not_found(self, path):
+        self.reply(404, {"error": {
+            "type": "invalid_request_error",
+            "code": "resource_missing",
+            "message": "No such resource: " + path,
+        }})
+
+    def do_GET(self):
+        time.sleep(self.delay)
+        path = urlparse(self.path).path
+        if path.startswith("/v1/prices/"):
+            price_id = path.rsplit("/", 1)[1]
+            self.reply(200, {"id": price_id, "object": "price", "active": True,
+                             "currency": "usd", "unit_amount": 2900})
+        elif path == "/v1/checkout/sessions":
+            with sessions_lock:
+                data = sorted(sessions.values(), key=lambda s: s["created"], reverse=True)
+            self.reply(200, {"object": "list", "url": path, "has_more": False, "data": data})
+        elif path.startswith("/v1/checkout/sessions/"):
+            session_id = path.rsplit("/", 1)[1]
+            if not session_id.startswith("cs_"):
+                self.not_found(path)
+                return
+            with sessions_lock:
+                found = sessions.get(session_id)
+            self.reply(200, found or session(session_id))
+        else:
+            self.not_found(path)
+
+    def do_POST(self):
+        length = int(self.headers.get("Content-Length") or 0)
+        form = parse_qs(self.rfile.read(length).decode())
+        time.sleep(self.delay)
+        path = urlparse(self.path).path
+        if path == "/v1/checkout/sessions":
+            session_id = "cs_test_stub%08d" % next(ids)
+            created = session(session_id, email=form.get("customer_email", [None])[0])
+            with sessions_lock:
+                sessions[session_id] = created
+            self.reply(200, created)
+        else:
+            self.not_found(path)
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Local Stripe API stub")
+    parser.add_argument("--port", type=int, default=12111)
+    parser.add_argument("--delay-ms", type=int, default=0)
+    args = parser.parse_args()
+
+    Handler.delay = args.delay_ms / 1000.0
+    ThreadingHTTPServer.request_queue_size = 512
+    server = ThreadingHTTPServer(("127.0.0.1", args.port), Handler)
+    server.daemon_threads = True
+    print("Stripe stub on port %d with %d ms delay" % (args.port, args.delay_ms), flush=True)
+    server.serve_forever()
+
+
+if __name__ == "__main__":
+    main()
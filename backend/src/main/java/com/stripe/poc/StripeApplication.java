@@ -2,6 +2,7 @@ package com.stripe.poc;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.bind.annotation.CrossOrigin;
 
 /**
@@ -17,6 +18,7 @@ import org.springframework.web.bind.annotation.CrossOrigin;
  * @version 1.0.0
  */
 @SpringBootApplication
+@EnableScheduling
 @CrossOrigin(origins = {"http://localhost:4200", "http://127.0.0.1:4200"})
 public class StripeApplication {
 
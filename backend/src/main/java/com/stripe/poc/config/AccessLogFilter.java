@@ -0,0 +1,63 @@
+package com.stripe.poc.config;
+
+import com.stripe.poc.service.AccessLogService;
+import com.stripe.poc.service.RequestTrace;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Servlet filter that traces each request and hands it to the access log
+ *
+ * Runs outside admission control so shed requests are logged too. The
+ * request thread only measures and offers the record; formatting and
+ * writing happen on the access log appender thread.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+@ConditionalOnProperty(name = "app.access-log.enabled", havingValue = "true", matchIfMissing = true)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private final AccessLogService accessLogService;
+
+    public AccessLogFilter(AccessLogService accessLogService) {
+        this.accessLogService = accessLogService;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        RequestTrace trace = RequestTrace.start();
+        String error = null;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            throw e;
+        } finally {
+            RequestTrace.end();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            accessLogService.logRequest(
+                request.getMethod(),
+                request.getRequestURI(),
+                pattern != null ? pattern.toString() : request.getRequestURI(),
+                error != null ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus(),
+                (System.nanoTime() - start) / 1_000,
+                error,
+                trace.getStripeCalls()
+            );
+        }
+    }
+}
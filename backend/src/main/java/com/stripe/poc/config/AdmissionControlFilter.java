@@ -0,0 +1,97 @@
+package com.stripe.poc.config;
+
+import com.stripe.poc.service.AdmissionControlService;
+import com.stripe.poc.service.AdmissionControlService.EndpointClass;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Servlet filter that sheds API load before it reaches the controllers
+ *
+ * Requests are classified as checkout, lookup or admin traffic and must be
+ * admitted by {@link AdmissionControlService}; the rest get a fast 503 with
+ * Retry-After. Product listing and CORS preflights are served locally and
+ * are not controlled.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "app.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final AdmissionControlService admissionControlService;
+
+    @Value("${app.admission.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    public AdmissionControlFilter(AdmissionControlService admissionControlService) {
+        this.admissionControlService = admissionControlService;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        EndpointClass endpointClass = classify(request);
+        if (endpointClass == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        boolean admitted;
+        try {
+            admitted = admissionControlService.acquire(endpointClass);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            admissionControlService.release(endpointClass, System.nanoTime() - start);
+        }
+    }
+
+    private EndpointClass classify(HttpServletRequest request) {
+        if ("OPTIONS".equals(request.getMethod())) {
+            return null;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals("/api/create-checkout-session")) {
+            return EndpointClass.CHECKOUT;
+        }
+        if (path.startsWith("/api/checkout-session/") || path.startsWith("/api/checkout-sessions/")) {
+            return EndpointClass.LOOKUP;
+        }
+        if (path.startsWith("/api/purchases/")) {
+            return EndpointClass.ADMIN;
+        }
+        return null;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"Server is busy, please retry shortly\"}");
+    }
+}
@@ -0,0 +1,104 @@
+package com.stripe.poc.config;
+
+import com.stripe.poc.service.PriceCatalogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Background warm-up that runs before the instance reports itself ready
+ *
+ * Once the context has started it creates the controllers and the services
+ * they call, refreshes the Stripe price catalog (which also warms the Stripe
+ * HTTP client) and sends one local request through the MVC stack. Beans off
+ * the request path are left to the faststart profile's lazy initialization.
+ * Readiness is held at
+ * REFUSING_TRAFFIC until this has finished, so a load balancer only routes to
+ * warm instances.
+ */
+@Component
+@Lazy(false)
+public class StartupWarmup {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private final ConfigurableApplicationContext context;
+
+    private boolean warm;
+    private boolean readinessHeld;
+
+    public StartupWarmup(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void startWarmup() {
+        Thread thread = new Thread(this::warmUp, "startup-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Spring reports ACCEPTING_TRAFFIC as soon as the context is ready; hold it until warm
+     */
+    @EventListener
+    public synchronized void onReadinessChange(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC && !warm) {
+            readinessHeld = true;
+            AvailabilityChangeEvent.publish(context, ReadinessState.REFUSING_TRAFFIC);
+        }
+    }
+
+    private void warmUp() {
+        long start = System.nanoTime();
+        try {
+            initializeRequestPath();
+            context.getBean(PriceCatalogService.class).refreshStripePrices();
+            sendLocalRequest();
+        } catch (Exception e) {
+            log.warn("Startup warm-up did not complete: {}", e.getMessage());
+        } finally {
+            markWarm();
+            log.info("Startup warm-up finished in {} ms", (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private void initializeRequestPath() {
+        // Creating a controller creates everything it is injected with
+        context.getBeansWithAnnotation(RestController.class);
+    }
+
+    private void sendLocalRequest() throws Exception {
+        if (!(context instanceof WebServerApplicationContext)) {
+            return;
+        }
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/api/products").openConnection();
+        try {
+            try (InputStream body = connection.getInputStream()) {
+                body.readAllBytes();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private synchronized void markWarm() {
+        warm = true;
+        if (readinessHeld) {
+            AvailabilityChangeEvent.publish(context, ReadinessState.ACCEPTING_TRAFFIC);
+        }
+    }
+}
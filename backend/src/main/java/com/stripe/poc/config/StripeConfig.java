@@ -1,13 +1,23 @@
 package com.stripe.poc.config;
 
 import com.stripe.Stripe;
+import com.stripe.net.ApiResource;
+import com.stripe.net.LiveStripeResponseGetter;
+import com.stripe.poc.service.AccessLogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.lang.NonNull;
-import org.springframework.web.servlet.config.annotation.CorsRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.web.filter.CorsFilter;
 
 import javax.annotation.PostConstruct;
+import java.util.List;
 
 /**
  * Stripe Configuration Class
@@ -15,7 +25,11 @@ import javax.annotation.PostConstruct;
  * Configures Stripe SDK and CORS settings for the application
  */
 @Configuration
-public class StripeConfig implements WebMvcConfigurer {
+public class StripeConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(StripeConfig.class);
+
+    private final AccessLogService accessLogService;
 
     @Value("${stripe.secret-key}")
     private String stripeSecretKey;
@@ -23,30 +37,50 @@ public class StripeConfig implements WebMvcConfigurer {
     @Value("${stripe.publishable-key}")
     private String stripePublishableKey;
 
+    @Value("${stripe.api-base:https://api.stripe.com}")
+    private String stripeApiBase;
+
+    public StripeConfig(AccessLogService accessLogService) {
+        this.accessLogService = accessLogService;
+    }
+
     /**
-     * Initialize Stripe with secret key
+     * Initialize Stripe with secret key and a tracing HTTP client
      */
     @PostConstruct
     public void initStripe() {
         Stripe.apiKey = stripeSecretKey;
-        System.out.println("✅ Stripe initialized with secret key: " + 
-            stripeSecretKey.substring(0, 12) + "...");
+        Stripe.overrideApiBase(stripeApiBase);
+        ApiResource.setStripeResponseGetter(new LiveStripeResponseGetter(new TracingHttpClient(accessLogService)));
+        log.info("Stripe initialized with secret key: {}...", stripeSecretKey.substring(0, 12));
     }
 
     /**
      * Configure CORS for Angular frontend
+     *
+     * Runs as the first servlet filter rather than in Spring MVC, so responses
+     * written by earlier filters, such as admission control's 503s, still
+     * carry CORS headers and the browser lets the frontend read Retry-After.
      */
-    @Override
-    public void addCorsMappings(@NonNull CorsRegistry registry) {
-        registry.addMapping("/api/**")
-                .allowedOrigins(
-                    "http://localhost:4200", 
-                    "http://127.0.0.1:4200"
-                )
-                .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-                .allowedHeaders("*")
-                .allowCredentials(true)
-                .maxAge(3600);
+    @Bean
+    public FilterRegistrationBean<CorsFilter> corsFilter() {
+        CorsConfiguration config = new CorsConfiguration();
+        config.setAllowedOrigins(List.of(
+            "http://localhost:4200", 
+            "http://127.0.0.1:4200"
+        ));
+        config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        config.addAllowedHeader("*");
+        config.addExposedHeader(HttpHeaders.RETRY_AFTER);
+        config.setAllowCredentials(true);
+        config.setMaxAge(3600L);
+
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/api/**", config);
+
+        FilterRegistrationBean<CorsFilter> registration = new FilterRegistrationBean<>(new CorsFilter(source));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
     }
 
     public String getStripePublishableKey() {
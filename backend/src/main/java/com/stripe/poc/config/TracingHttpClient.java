@@ -0,0 +1,49 @@
+package com.stripe.poc.config;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.net.HttpURLConnectionClient;
+import com.stripe.net.StripeRequest;
+import com.stripe.net.StripeResponse;
+import com.stripe.poc.model.StripeCall;
+import com.stripe.poc.service.AccessLogService;
+import com.stripe.poc.service.RequestTrace;
+
+/**
+ * Stripe HTTP client that times every API call
+ *
+ * Calls made while serving a request, including bulk lookups fanned out to
+ * the lookup pool, are added to its trace; calls from background work such
+ * as the price refresh go straight to the access log when they are slow.
+ */
+public class TracingHttpClient extends HttpURLConnectionClient {
+
+    private final AccessLogService accessLogService;
+
+    public TracingHttpClient(AccessLogService accessLogService) {
+        this.accessLogService = accessLogService;
+    }
+
+    @Override
+    public StripeResponse request(StripeRequest request) throws ApiConnectionException {
+        long start = System.nanoTime();
+        int status = -1; // Connection failures have no HTTP status
+        try {
+            StripeResponse response = super.request(request);
+            status = response.code();
+            return response;
+        } finally {
+            StripeCall call = new StripeCall(
+                request.method().name(),
+                request.url().getPath(),
+                status,
+                (System.nanoTime() - start) / 1_000
+            );
+            RequestTrace trace = RequestTrace.current();
+            if (trace != null) {
+                trace.addStripeCall(call);
+            } else {
+                accessLogService.logBackgroundStripeCall(call);
+            }
+        }
+    }
+}
@@ -1,20 +1,30 @@
 package com.stripe.poc.controller;
 
+import com.stripe.exception.SignatureVerificationException;
 import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
+import com.stripe.poc.model.BulkSessionStatusRequest;
+import com.stripe.poc.model.BulkSessionStatusResponse;
 import com.stripe.poc.model.CheckoutRequest;
 import com.stripe.poc.model.CheckoutResponse;
+import com.stripe.poc.model.CustomerSummary;
+import com.stripe.poc.model.TimeSeriesPoint;
+import com.stripe.poc.service.CustomerSummaryService;
+import com.stripe.poc.service.RevenueRollupService;
+import com.stripe.poc.service.SessionStatusService;
 import com.stripe.poc.service.StripeCheckoutService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * REST controller for Stripe Checkout operations
@@ -27,6 +37,15 @@ public class CheckoutController {
     @Autowired
     private StripeCheckoutService checkoutService;
     
+    @Autowired
+    private CustomerSummaryService customerSummaryService;
+    
+    @Autowired
+    private SessionStatusService sessionStatusService;
+    
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+    
     /**
      * Creates a new Stripe Checkout session
      * @param request The checkout request with price ID and customer details
@@ -37,6 +56,10 @@ public class CheckoutController {
         try {
             CheckoutResponse response = checkoutService.createCheckoutSession(request);
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         } catch (StripeException e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Failed to create checkout session: " + e.getMessage());
@@ -48,6 +71,36 @@ public class CheckoutController {
         }
     }
     
+    /**
+     * Receives checkout session events from Stripe
+     * POST /api/webhooks/stripe
+     * 
+     * Keeps local session state current for sessions that change where no
+     * instance is looking, such as a tab closed before the success page or an
+     * async payment settling days later.
+     */
+    @PostMapping("/webhooks/stripe")
+    public ResponseEntity<?> handleStripeWebhook(
+            @RequestBody String payload,
+            @RequestHeader("Stripe-Signature") String signature) {
+        try {
+            checkoutService.recordWebhookEvent(payload, signature);
+            return ResponseEntity.ok().build();
+        } catch (SignatureVerificationException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Invalid signature");
+            return ResponseEntity.badRequest().body(error);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Internal server error: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
     /**
      * Retrieves checkout session details
      * @param sessionId The session ID to retrieve
@@ -79,6 +132,24 @@ public class CheckoutController {
         }
     }
     
+    /**
+     * Looks up the status of many checkout sessions at once
+     * POST /api/checkout-sessions/status
+     * @param request The session IDs to look up
+     * @return ResponseEntity with per-ID statuses and a latency breakdown
+     */
+    @PostMapping("/checkout-sessions/status")
+    public ResponseEntity<?> getSessionStatuses(@Valid @RequestBody BulkSessionStatusRequest request) {
+        try {
+            BulkSessionStatusResponse response = sessionStatusService.getStatuses(request.getSessionIds());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Internal server error: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
     /**
      * Get all purchase sessions (admin)
      * GET /api/purchases/sessions
@@ -143,4 +214,79 @@ public class CheckoutController {
             return ResponseEntity.badRequest().body(error);
         }
     }
+    
+    /**
+     * Get a customer's purchase summary
+     * GET /api/purchases/customers/{email}/summary
+     */
+    @GetMapping("/purchases/customers/{email}/summary")
+    public ResponseEntity<?> getCustomerSummary(@PathVariable String email) {
+        try {
+            if (!customerSummaryService.isHistoryLoaded(email)) {
+                // First lookup for this customer: sessions seen so far may be only part of the history
+                checkoutService.loadCustomerSessions(email);
+                customerSummaryService.markHistoryLoaded(email);
+            }
+            Optional<CustomerSummary> summary = customerSummaryService.getSummary(email);
+            if (summary.isPresent()) {
+                return ResponseEntity.ok(summary.get());
+            } else {
+                return ResponseEntity.notFound().build();
+            }
+        } catch (StripeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to retrieve customer summary: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Internal server error: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
+    /**
+     * Get the top customers by lifetime spend (admin)
+     * GET /api/purchases/customers/top?currency=usd&limit=10
+     */
+    @GetMapping("/purchases/customers/top")
+    public ResponseEntity<?> getTopCustomers(
+            @RequestParam(defaultValue = "usd") String currency,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            List<CustomerSummary> customers = customerSummaryService.getTopCustomersByRevenue(currency, limit);
+            return ResponseEntity.ok(customers);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Internal server error: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
+    /**
+     * Get revenue and conversion time series (admin)
+     * GET /api/purchases/timeseries?granularity=hour&points=24&currency=usd
+     */
+    @GetMapping("/purchases/timeseries")
+    public ResponseEntity<?> getTimeSeries(
+            @RequestParam(defaultValue = "hour") String granularity,
+            @RequestParam(defaultValue = "60") int points,
+            @RequestParam(defaultValue = "usd") String currency) {
+        try {
+            List<TimeSeriesPoint> series = revenueRollupService.getTimeSeries(
+                currency,
+                RevenueRollupService.Granularity.parse(granularity),
+                points,
+                Instant.now().getEpochSecond()
+            );
+            return ResponseEntity.ok(series);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Internal server error: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
 }
@@ -0,0 +1,94 @@
+package com.stripe.poc.model;
+
+import java.util.List;
+
+/**
+ * Immutable access/trace log entry
+ *
+ * Built on the request thread and formatted later by the background appender,
+ * so construction only copies references.
+ */
+public class AccessLogRecord {
+
+    /** Kept because the request was sampled */
+    public static final String REASON_SAMPLED = "sampled";
+    /** Always kept: the request failed */
+    public static final String REASON_ERROR = "error";
+    /** Always kept: a Stripe call was slow */
+    public static final String REASON_SLOW_STRIPE = "slow-stripe";
+
+    private final long timestampMillis;
+    private final String method;
+    private final String uri;
+    private final String pattern;
+    private final int status;
+    private final long durationMicros;
+    private final String reason;
+    private final String error;
+    private final List<StripeCall> stripeCalls;
+
+    public AccessLogRecord(long timestampMillis, String method, String uri, String pattern, int status,
+                           long durationMicros, String reason, String error, List<StripeCall> stripeCalls) {
+        this.timestampMillis = timestampMillis;
+        this.method = method;
+        this.uri = uri;
+        this.pattern = pattern;
+        this.status = status;
+        this.durationMicros = durationMicros;
+        this.reason = reason;
+        this.error = error;
+        this.stripeCalls = stripeCalls;
+    }
+
+    // Getters
+    public long getTimestampMillis() { return timestampMillis; }
+
+    public String getMethod() { return method; }
+
+    public String getUri() { return uri; }
+
+    public String getPattern() { return pattern; }
+
+    public int getStatus() { return status; }
+
+    public long getDurationMicros() { return durationMicros; }
+
+    public String getReason() { return reason; }
+
+    public String getError() { return error; }
+
+    public List<StripeCall> getStripeCalls() { return stripeCalls; }
+
+    /**
+     * Format as a single key=value line
+     */
+    public String format() {
+        StringBuilder line = new StringBuilder(160)
+                .append("ts=").append(timestampMillis)
+                .append(" method=").append(method)
+                .append(" uri=").append(uri)
+                .append(" pattern=").append(pattern)
+                .append(" status=").append(status)
+                .append(" durationUs=").append(durationMicros)
+                .append(" reason=").append(reason);
+
+        long stripeMicros = 0;
+        for (StripeCall call : stripeCalls) {
+            stripeMicros += call.getDurationMicros();
+        }
+        line.append(" stripeCalls=").append(stripeCalls.size())
+                .append(" stripeUs=").append(stripeMicros);
+        if (error != null) {
+            line.append(" error=\"").append(error.replace('"', '\'')).append('"');
+        }
+        if (!stripeCalls.isEmpty()) {
+            line.append(" trace=").append(stripeCalls);
+        }
+        return line.toString();
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
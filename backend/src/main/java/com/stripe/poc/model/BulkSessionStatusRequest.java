@@ -0,0 +1,41 @@
+package com.stripe.poc.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Request model for looking up the status of many checkout sessions at once
+ */
+public class BulkSessionStatusRequest {
+
+    @JsonProperty("sessionIds")
+    @NotEmpty(message = "At least one session ID is required")
+    @Size(max = 1000, message = "At most 1000 session IDs per request")
+    private List<@NotBlank(message = "Session IDs must not be blank") String> sessionIds;
+
+    // Constructors
+    public BulkSessionStatusRequest() {}
+
+    public BulkSessionStatusRequest(List<String> sessionIds) {
+        this.sessionIds = sessionIds;
+    }
+
+    // Getters and Setters
+    public List<String> getSessionIds() {
+        return sessionIds;
+    }
+
+    public void setSessionIds(List<String> sessionIds) {
+        this.sessionIds = sessionIds;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkSessionStatusRequest{" +
+                "sessionIds=" + (sessionIds != null ? sessionIds.size() : 0) +
+                '}';
+    }
+}
@@ -0,0 +1,97 @@
+package com.stripe.poc.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+
+/**
+ * Response model for bulk session status lookups
+ */
+public class BulkSessionStatusResponse {
+
+    @JsonProperty("statuses")
+    private Map<String, SessionStatusResult> statuses;
+
+    @JsonProperty("latency")
+    private Latency latency;
+
+    // "unknown" means not created in [filterCoversSince, filterSyncedAt]; retry after the next sync if needed
+    @JsonProperty("filterCoversSince")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long filterCoversSince; // Epoch seconds
+
+    @JsonProperty("filterSyncedAt")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long filterSyncedAt; // Epoch seconds
+
+    // Constructors
+    public BulkSessionStatusResponse() {}
+
+    public BulkSessionStatusResponse(Map<String, SessionStatusResult> statuses, Latency latency) {
+        this.statuses = statuses;
+        this.latency = latency;
+    }
+
+    // Getters and Setters
+    public Map<String, SessionStatusResult> getStatuses() { return statuses; }
+    public void setStatuses(Map<String, SessionStatusResult> statuses) { this.statuses = statuses; }
+
+    public Latency getLatency() { return latency; }
+    public void setLatency(Latency latency) { this.latency = latency; }
+
+    public Long getFilterCoversSince() { return filterCoversSince; }
+    public void setFilterCoversSince(Long filterCoversSince) { this.filterCoversSince = filterCoversSince; }
+
+    public Long getFilterSyncedAt() { return filterSyncedAt; }
+    public void setFilterSyncedAt(Long filterSyncedAt) { this.filterSyncedAt = filterSyncedAt; }
+
+    /**
+     * Where the time for a bulk lookup went
+     */
+    public static class Latency {
+
+        @JsonProperty("totalMicros")
+        private long totalMicros;
+
+        @JsonProperty("localMicros")
+        private long localMicros;
+
+        @JsonProperty("stripeMicros")
+        private long stripeMicros;
+
+        @JsonProperty("localHits")
+        private int localHits;
+
+        @JsonProperty("filtered")
+        private int filtered;
+
+        @JsonProperty("stripeFetches")
+        private int stripeFetches;
+
+        @JsonProperty("stripeErrors")
+        private int stripeErrors;
+
+        // Getters and Setters
+        public long getTotalMicros() { return totalMicros; }
+        public void setTotalMicros(long totalMicros) { this.totalMicros = totalMicros; }
+
+        public long getLocalMicros() { return localMicros; }
+        public void setLocalMicros(long localMicros) { this.localMicros = localMicros; }
+
+        public long getStripeMicros() { return stripeMicros; }
+        public void setStripeMicros(long stripeMicros) { this.stripeMicros = stripeMicros; }
+
+        public int getLocalHits() { return localHits; }
+        public void setLocalHits(int localHits) { this.localHits = localHits; }
+
+        public int getFiltered() { return filtered; }
+        public void setFiltered(int filtered) { this.filtered = filtered; }
+
+        public int getStripeFetches() { return stripeFetches; }
+        public void setStripeFetches(int stripeFetches) { this.stripeFetches = stripeFetches; }
+
+        public int getStripeErrors() { return stripeErrors; }
+        public void setStripeErrors(int stripeErrors) { this.stripeErrors = stripeErrors; }
+    }
+}
@@ -0,0 +1,82 @@
+package com.stripe.poc.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-customer purchase totals
+ */
+public class CustomerSummary {
+
+    @JsonProperty("email")
+    private String email;
+
+    @JsonProperty("lifetimeSpend")
+    private Map<String, Long> lifetimeSpend = new TreeMap<>(); // Currency -> amount in minor units
+
+    @JsonProperty("sessionCount")
+    private int sessionCount;
+
+    @JsonProperty("paidSessionCount")
+    private int paidSessionCount;
+
+    @JsonProperty("lastPurchase")
+    private Long lastPurchase; // Epoch seconds
+
+    @JsonProperty("currentTier")
+    private String currentTier;
+
+    // Constructors
+    public CustomerSummary() {}
+
+    public CustomerSummary(String email) {
+        this.email = email;
+    }
+
+    public CustomerSummary(CustomerSummary other) {
+        this.email = other.email;
+        this.lifetimeSpend = new TreeMap<>(other.lifetimeSpend);
+        this.sessionCount = other.sessionCount;
+        this.paidSessionCount = other.paidSessionCount;
+        this.lastPurchase = other.lastPurchase;
+        this.currentTier = other.currentTier;
+    }
+
+    // Getters and Setters
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+
+    public Map<String, Long> getLifetimeSpend() { return lifetimeSpend; }
+    public void setLifetimeSpend(Map<String, Long> lifetimeSpend) { this.lifetimeSpend = lifetimeSpend; }
+
+    /**
+     * Lifetime spend in one currency, in minor units
+     */
+    public long getLifetimeSpend(String currency) {
+        return lifetimeSpend.getOrDefault(currency, 0L);
+    }
+
+    public int getSessionCount() { return sessionCount; }
+    public void setSessionCount(int sessionCount) { this.sessionCount = sessionCount; }
+
+    public int getPaidSessionCount() { return paidSessionCount; }
+    public void setPaidSessionCount(int paidSessionCount) { this.paidSessionCount = paidSessionCount; }
+
+    public Long getLastPurchase() { return lastPurchase; }
+    public void setLastPurchase(Long lastPurchase) { this.lastPurchase = lastPurchase; }
+
+    public String getCurrentTier() { return currentTier; }
+    public void setCurrentTier(String currentTier) { this.currentTier = currentTier; }
+
+    @Override
+    public String toString() {
+        return "CustomerSummary{" +
+                "email='" + email + '\'' +
+                ", lifetimeSpend=" + lifetimeSpend +
+                ", sessionCount=" + sessionCount +
+                ", currentTier='" + currentTier + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,151 @@
+package com.stripe.poc.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.stripe.model.checkout.Session;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable local copy of the checkout session fields we track
+ */
+public class SessionSnapshot {
+
+    public static final String METADATA_PRODUCT_ID = "productId";
+
+    @JsonProperty("id")
+    private final String id;
+
+    @JsonProperty("status")
+    private final String status;
+
+    @JsonProperty("paymentStatus")
+    private final String paymentStatus;
+
+    @JsonProperty("customerEmail")
+    private final String customerEmail;
+
+    @JsonProperty("amountTotal")
+    private final Long amountTotal;
+
+    @JsonProperty("currency")
+    private final String currency;
+
+    @JsonProperty("created")
+    private final Long created; // Epoch seconds
+
+    @JsonProperty("productId")
+    private final String productId;
+
+    public SessionSnapshot(String id, String status, String paymentStatus, String customerEmail,
+                           Long amountTotal, String currency, Long created, String productId) {
+        this.id = id;
+        this.status = status;
+        this.paymentStatus = paymentStatus;
+        this.customerEmail = customerEmail;
+        this.amountTotal = amountTotal;
+        this.currency = currency;
+        this.created = created;
+        this.productId = productId;
+    }
+
+    /**
+     * Capture the tracked fields of a Stripe session
+     */
+    public static SessionSnapshot from(Session session) {
+        Map<String, String> metadata = session.getMetadata();
+        // customer_email is only set when we prefill it; otherwise the customer enters it at checkout
+        String customerEmail = session.getCustomerEmail();
+        if (customerEmail == null && session.getCustomerDetails() != null) {
+            customerEmail = session.getCustomerDetails().getEmail();
+        }
+        return new SessionSnapshot(
+            session.getId(),
+            session.getStatus(),
+            session.getPaymentStatus(),
+            customerEmail,
+            session.getAmountTotal(),
+            session.getCurrency(),
+            session.getCreated(),
+            metadata != null ? metadata.get(METADATA_PRODUCT_ID) : null
+        );
+    }
+
+    // Getters
+    public String getId() { return id; }
+
+    public String getStatus() { return status; }
+
+    public String getPaymentStatus() { return paymentStatus; }
+
+    public String getCustomerEmail() { return customerEmail; }
+
+    public Long getAmountTotal() { return amountTotal; }
+
+    public String getCurrency() { return currency; }
+
+    public Long getCreated() { return created; }
+
+    public String getProductId() { return productId; }
+
+    /**
+     * Whether the session can never change again
+     *
+     * An expired session is final. A complete session is final once its
+     * payment has settled: with async payment methods it completes unpaid
+     * and turns paid (or stays unpaid on failure) later.
+     */
+    public boolean isFinal() {
+        return "expired".equals(status) || ("complete".equals(status) && !"unpaid".equals(paymentStatus));
+    }
+
+    /**
+     * Whether this state is older than the given one
+     *
+     * Sessions only move forward: open to complete or expired, unpaid to
+     * paid. A list page fetched before a change can arrive after it, and
+     * must not roll the session back.
+     */
+    public boolean isBehind(SessionSnapshot other) {
+        boolean otherClosed = "complete".equals(other.status) || "expired".equals(other.status);
+        boolean otherSettled = other.paymentStatus != null && !"unpaid".equals(other.paymentStatus);
+        return (otherClosed && "open".equals(status)) || (otherSettled && "unpaid".equals(paymentStatus));
+    }
+
+    /**
+     * Whether the session has been paid for
+     */
+    public boolean isPaid() {
+        return "paid".equals(paymentStatus);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SessionSnapshot)) return false;
+        SessionSnapshot that = (SessionSnapshot) o;
+        return Objects.equals(id, that.id)
+                && Objects.equals(status, that.status)
+                && Objects.equals(paymentStatus, that.paymentStatus)
+                && Objects.equals(customerEmail, that.customerEmail)
+                && Objects.equals(amountTotal, that.amountTotal)
+                && Objects.equals(currency, that.currency)
+                && Objects.equals(created, that.created)
+                && Objects.equals(productId, that.productId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, status, paymentStatus, customerEmail, amountTotal, currency, created, productId);
+    }
+
+    @Override
+    public String toString() {
+        return "SessionSnapshot{" +
+                "id='" + id + '\'' +
+                ", status='" + status + '\'' +
+                ", paymentStatus='" + paymentStatus + '\'' +
+                ", amountTotal=" + amountTotal +
+                '}';
+    }
+}
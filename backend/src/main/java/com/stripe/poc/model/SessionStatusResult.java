@@ -0,0 +1,71 @@
+package com.stripe.poc.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Status of a single session in a bulk status lookup
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SessionStatusResult {
+
+    /** Answered from the local session state */
+    public static final String SOURCE_LOCAL = "local";
+    /** Fetched from Stripe */
+    public static final String SOURCE_STRIPE = "stripe";
+    /** Never seen by this instance, so not looked up */
+    public static final String SOURCE_FILTER = "filter";
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("paymentStatus")
+    private String paymentStatus;
+
+    @JsonProperty("source")
+    private String source;
+
+    @JsonProperty("error")
+    private String error;
+
+    // Constructors
+    public SessionStatusResult() {}
+
+    public SessionStatusResult(String status, String paymentStatus, String source) {
+        this.status = status;
+        this.paymentStatus = paymentStatus;
+        this.source = source;
+    }
+
+    public static SessionStatusResult of(SessionSnapshot snapshot, String source) {
+        return new SessionStatusResult(snapshot.getStatus(), snapshot.getPaymentStatus(), source);
+    }
+
+    public static SessionStatusResult error(String status, String source, String error) {
+        SessionStatusResult result = new SessionStatusResult(status, null, source);
+        result.setError(error);
+        return result;
+    }
+
+    // Getters and Setters
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getPaymentStatus() { return paymentStatus; }
+    public void setPaymentStatus(String paymentStatus) { this.paymentStatus = paymentStatus; }
+
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    @Override
+    public String toString() {
+        return "SessionStatusResult{" +
+                "status='" + status + '\'' +
+                ", paymentStatus='" + paymentStatus + '\'' +
+                ", source='" + source + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,33 @@
+package com.stripe.poc.model;
+
+/**
+ * One HTTP call to the Stripe API, as recorded in a request trace
+ */
+public class StripeCall {
+
+    private final String method;
+    private final String path;
+    private final int status;
+    private final long durationMicros;
+
+    public StripeCall(String method, String path, int status, long durationMicros) {
+        this.method = method;
+        this.path = path;
+        this.status = status;
+        this.durationMicros = durationMicros;
+    }
+
+    // Getters
+    public String getMethod() { return method; }
+
+    public String getPath() { return path; }
+
+    public int getStatus() { return status; }
+
+    public long getDurationMicros() { return durationMicros; }
+
+    @Override
+    public String toString() {
+        return method + " " + path + " " + status + " " + durationMicros + "us";
+    }
+}
@@ -0,0 +1,59 @@
+package com.stripe.poc.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One bucket of the revenue and conversion time series
+ */
+public class TimeSeriesPoint {
+
+    @JsonProperty("start")
+    private long start; // Bucket start, epoch seconds
+
+    @JsonProperty("opened")
+    private long opened;
+
+    @JsonProperty("paid")
+    private long paid;
+
+    @JsonProperty("revenue")
+    private long revenue; // Amount in cents
+
+    // Constructors
+    public TimeSeriesPoint() {}
+
+    public TimeSeriesPoint(long start, long opened, long paid, long revenue) {
+        this.start = start;
+        this.opened = opened;
+        this.paid = paid;
+        this.revenue = revenue;
+    }
+
+    // Getters and Setters
+    public long getStart() { return start; }
+    public void setStart(long start) { this.start = start; }
+
+    public long getOpened() { return opened; }
+    public void setOpened(long opened) { this.opened = opened; }
+
+    public long getPaid() { return paid; }
+    public void setPaid(long paid) { this.paid = paid; }
+
+    public long getRevenue() { return revenue; }
+    public void setRevenue(long revenue) { this.revenue = revenue; }
+
+    @JsonProperty("conversionRate")
+    public double getConversionRate() {
+        return opened > 0 ? (double) paid / opened : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return "TimeSeriesPoint{" +
+                "start=" + start +
+                ", opened=" + opened +
+                ", paid=" + paid +
+                ", revenue=" + revenue +
+                '}';
+    }
+}
@@ -0,0 +1,169 @@
+package com.stripe.poc.service;
+
+import com.stripe.poc.model.AccessLogRecord;
+import com.stripe.poc.model.StripeCall;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous, sampled access/trace log
+ *
+ * Request threads only decide whether to keep a record and offer it to a
+ * lock-free ring buffer; a background appender formats and writes it to the
+ * {@code com.stripe.poc.access} logger. Each endpoint pattern has its own
+ * sample rate, while errors and requests with a slow Stripe call are always
+ * kept with their full trace. Records are dropped, and counted, if the
+ * appender falls behind.
+ */
+@Service
+public class AccessLogService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessLogService.class);
+    private static final Logger accessLog = LoggerFactory.getLogger("com.stripe.poc.access");
+
+    private static final int DRAIN_BATCH = 256;
+    /** Upper bound on an idle park; offers wake the appender, so this only limits a missed wake-up */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final LogRingBuffer<AccessLogRecord> buffer;
+    private final Map<String, Double> sampleRates;
+    private final double defaultSampleRate;
+    private final long slowStripeCallMicros;
+    private volatile boolean running;
+    private volatile boolean appenderParked;
+    private Thread appender;
+
+    public AccessLogService(Environment environment,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.access-log.buffer-size:8192}") int bufferSize,
+                            @Value("${app.access-log.default-sample-rate:0.01}") double defaultSampleRate,
+                            @Value("${app.access-log.slow-stripe-call-ms:1000}") long slowStripeCallMs) {
+        this.buffer = new LogRingBuffer<>(bufferSize);
+        this.defaultSampleRate = defaultSampleRate;
+        this.slowStripeCallMicros = TimeUnit.MILLISECONDS.toMicros(slowStripeCallMs);
+        this.sampleRates = Binder.get(environment)
+                .bind("app.access-log.sample-rates", Bindable.mapOf(String.class, Double.class))
+                .orElse(Collections.emptyMap());
+        FunctionCounter.builder("access.log.dropped", buffer, LogRingBuffer::getDropped)
+                .description("Access log records dropped because the buffer was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        appender = new Thread(this::runAppender, "access-log-appender");
+        appender.setDaemon(true);
+        appender.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(appender);
+        appender.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Record a served request if it is sampled, failed or made a slow Stripe call
+     * @param pattern Matched endpoint pattern, used to look up the sample rate
+     */
+    public void logRequest(String method, String uri, String pattern, int status, long durationMicros,
+                           String error, List<StripeCall> stripeCalls) {
+        String reason;
+        if (status >= 400 || error != null) {
+            reason = AccessLogRecord.REASON_ERROR;
+        } else if (hasSlowCall(stripeCalls)) {
+            reason = AccessLogRecord.REASON_SLOW_STRIPE;
+        } else if (ThreadLocalRandom.current().nextDouble() < sampleRates.getOrDefault(pattern, defaultSampleRate)) {
+            reason = AccessLogRecord.REASON_SAMPLED;
+        } else {
+            return;
+        }
+        offer(new AccessLogRecord(System.currentTimeMillis(), method, uri, pattern, status,
+                durationMicros, reason, error, stripeCalls));
+    }
+
+    /**
+     * Record a Stripe call made outside any request, if it was slow
+     */
+    public void logBackgroundStripeCall(StripeCall call) {
+        if (call.getDurationMicros() >= slowStripeCallMicros) {
+            offer(new AccessLogRecord(System.currentTimeMillis(), "-", "-", Thread.currentThread().getName(),
+                    call.getStatus(), call.getDurationMicros(), AccessLogRecord.REASON_SLOW_STRIPE, null,
+                    Collections.singletonList(call)));
+        }
+    }
+
+    private void offer(AccessLogRecord record) {
+        if (buffer.offer(record) && appenderParked) {
+            LockSupport.unpark(appender);
+        }
+    }
+
+    private boolean hasSlowCall(List<StripeCall> stripeCalls) {
+        for (StripeCall call : stripeCalls) {
+            if (call.getDurationMicros() >= slowStripeCallMicros) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void runAppender() {
+        long reportedDropped = 0;
+        while (running) {
+            try {
+                if (buffer.drain(this::write, DRAIN_BATCH) == 0) {
+                    park();
+                }
+                long dropped = buffer.getDropped();
+                if (dropped != reportedDropped) {
+                    log.warn("Access log dropped {} records because the buffer was full", dropped - reportedDropped);
+                    reportedDropped = dropped;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Access log appender failed to write a record: {}", e.getMessage());
+            }
+        }
+        // Flush what is left on shutdown
+        while (buffer.drain(this::write, DRAIN_BATCH) > 0) {
+            // keep draining
+        }
+    }
+
+    /**
+     * Sleep until an offer arrives; the flag is raised before the last look at the
+     * buffer, so a record published after that look always sees it and unparks us
+     */
+    private void park() {
+        appenderParked = true;
+        try {
+            if (buffer.drain(this::write, DRAIN_BATCH) == 0 && running) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        } finally {
+            appenderParked = false;
+        }
+    }
+
+    private void write(AccessLogRecord record) {
+        accessLog.info(record.format());
+    }
+}
@@ -0,0 +1,268 @@
+package com.stripe.poc.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Admission control for API requests
+ *
+ * Each endpoint class has its own concurrency limit, adapted to a smoothed
+ * latency (additive increase while under the latency target, multiplicative
+ * decrease above it, at most once per window), and all classes share a global
+ * limit. Requests that cannot run straight away wait in a bounded queue;
+ * freed global permits go to checkout first, then lookups, then admin. A
+ * request blocked only by its own class limit never holds up another class.
+ *
+ * Waiting requests hold a servlet worker, so lower classes keep some workers
+ * in reserve: once in-flight plus queued requests reach the worker pool size
+ * minus a class's headroom, that class is rejected instead of queued.
+ * Anything over the queue bound or waiting too long is rejected so the
+ * caller can shed it quickly.
+ */
+@Service
+public class AdmissionControlService {
+
+    /**
+     * Endpoint classes in priority order
+     */
+    public enum EndpointClass {
+        CHECKOUT,
+        LOOKUP,
+        ADMIN
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<EndpointClass, ClassState> classes = new EnumMap<>(EndpointClass.class);
+    private final TreeSet<Waiter> waiters = new TreeSet<>(
+            Comparator.comparing((Waiter waiter) -> waiter.endpointClass).thenComparingLong(waiter -> waiter.sequence));
+    private final AtomicLong sequence = new AtomicLong();
+    private final int globalLimit;
+    private final int workerThreads;
+    private int globalInFlight;
+    private int globalQueued;
+
+    public AdmissionControlService(Environment environment,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.admission.global-limit:150}") int globalLimit,
+                                   @Value("${server.tomcat.threads.max:200}") int workerThreads) {
+        this.globalLimit = globalLimit;
+        this.workerThreads = workerThreads;
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            String name = endpointClass.name().toLowerCase(Locale.ROOT);
+            String prefix = "app.admission." + name + ".";
+            classes.put(endpointClass, new ClassState(
+                    environment.getProperty(prefix + "limit", Integer.class, 50),
+                    environment.getProperty(prefix + "min-limit", Integer.class, 1),
+                    environment.getProperty(prefix + "queue-capacity", Integer.class, 100),
+                    environment.getProperty(prefix + "max-wait-ms", Long.class, 1000L),
+                    environment.getProperty(prefix + "target-latency-ms", Long.class, 1000L),
+                    environment.getProperty(prefix + "worker-headroom", Integer.class, 0)
+            ));
+            registerMetrics(meterRegistry, endpointClass, name);
+        }
+    }
+
+    /**
+     * Try to admit a request, waiting in the class queue if needed
+     * @return true if admitted; the caller must then call {@link #release}
+     */
+    public boolean acquire(EndpointClass endpointClass) throws InterruptedException {
+        ClassState state = classes.get(endpointClass);
+        lock.lock();
+        try {
+            // Waiters are only ever blocked by their own class limit or a full global limit,
+            // so a request that can run now is not jumping anyone it competes with
+            if (canRun(state)) {
+                admit(state);
+                return true;
+            }
+            if (state.queued >= state.queueCapacity
+                    || globalInFlight + globalQueued >= workerThreads - state.workerHeadroom) {
+                state.rejected++;
+                return false;
+            }
+
+            Waiter waiter = new Waiter(endpointClass, sequence.incrementAndGet(), lock.newCondition());
+            waiters.add(waiter);
+            state.queued++;
+            globalQueued++;
+            long remaining = TimeUnit.MILLISECONDS.toNanos(state.maxWaitMs);
+            try {
+                while (!waiter.admitted && remaining > 0) {
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                if (!waiter.admitted) {
+                    waiters.remove(waiter);
+                    state.queued--;
+                    globalQueued--;
+                    throw e;
+                }
+                // Already holding a permit, so keep it and let the caller finish
+                Thread.currentThread().interrupt();
+            }
+            if (!waiter.admitted) {
+                waiters.remove(waiter);
+                state.queued--;
+                globalQueued--;
+                state.rejected++;
+            }
+            return waiter.admitted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release an admitted request and feed its latency into the adaptive limit
+     */
+    public void release(EndpointClass endpointClass, long latencyNanos) {
+        ClassState state = classes.get(endpointClass);
+        lock.lock();
+        try {
+            state.inFlight--;
+            globalInFlight--;
+            state.adapt(latencyNanos, System.nanoTime());
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void registerMetrics(MeterRegistry meterRegistry, EndpointClass endpointClass, String name) {
+        Gauge.builder("admission.limit", this, service -> service.read(endpointClass, ClassState::currentLimit))
+                .tag("class", name)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("admission.in.flight", this, service -> service.read(endpointClass, state -> state.inFlight))
+                .tag("class", name)
+                .register(meterRegistry);
+        Gauge.builder("admission.queued", this, service -> service.read(endpointClass, state -> state.queued))
+                .tag("class", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("admission.rejected", this, service -> service.read(endpointClass, state -> state.rejected))
+                .tag("class", name)
+                .description("Requests rejected since startup")
+                .register(meterRegistry);
+    }
+
+    private double read(EndpointClass endpointClass, ToDoubleFunction<ClassState> metric) {
+        lock.lock();
+        try {
+            return metric.applyAsDouble(classes.get(endpointClass));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canRun(ClassState state) {
+        return globalInFlight < globalLimit && state.inFlight < state.currentLimit();
+    }
+
+    private void admit(ClassState state) {
+        state.inFlight++;
+        globalInFlight++;
+    }
+
+    private void dispatch() {
+        Iterator<Waiter> iterator = waiters.iterator();
+        while (iterator.hasNext() && globalInFlight < globalLimit) {
+            Waiter waiter = iterator.next();
+            ClassState state = classes.get(waiter.endpointClass);
+            if (state.inFlight < state.currentLimit()) {
+                iterator.remove();
+                state.queued--;
+                globalQueued--;
+                admit(state);
+                waiter.admitted = true;
+                waiter.condition.signal();
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final EndpointClass endpointClass;
+        private final long sequence;
+        private final Condition condition;
+        private boolean admitted;
+
+        private Waiter(EndpointClass endpointClass, long sequence, Condition condition) {
+            this.endpointClass = endpointClass;
+            this.sequence = sequence;
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * Per-class counters, guarded by the service lock
+     */
+    private static final class ClassState {
+        private static final double DECREASE_FACTOR = 0.9;
+        private static final double LATENCY_SMOOTHING = 0.1;
+
+        private final int maxLimit;
+        private final int minLimit;
+        private final int queueCapacity;
+        private final long maxWaitMs;
+        private final long targetLatencyNanos;
+        private final int workerHeadroom;
+        private double limit;
+        private double smoothedLatencyNanos;
+        private int completionsSinceDecrease;
+        private long lastDecreaseNanos;
+        private int inFlight;
+        private int queued;
+        private long rejected;
+
+        private ClassState(int maxLimit, int minLimit, int queueCapacity, long maxWaitMs,
+                           long targetLatencyMs, int workerHeadroom) {
+            this.maxLimit = Math.max(1, maxLimit);
+            this.minLimit = Math.max(1, Math.min(minLimit, this.maxLimit));
+            this.queueCapacity = Math.max(0, queueCapacity);
+            this.maxWaitMs = maxWaitMs;
+            this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+            this.workerHeadroom = Math.max(0, workerHeadroom);
+            this.limit = this.maxLimit;
+            this.lastDecreaseNanos = System.nanoTime() - targetLatencyNanos;
+        }
+
+        private int currentLimit() {
+            return (int) limit;
+        }
+
+        private void adapt(long latencyNanos, long now) {
+            smoothedLatencyNanos = smoothedLatencyNanos == 0
+                    ? latencyNanos
+                    : smoothedLatencyNanos + LATENCY_SMOOTHING * (latencyNanos - smoothedLatencyNanos);
+            completionsSinceDecrease++;
+
+            if (smoothedLatencyNanos > targetLatencyNanos) {
+                // One decrease per window: a full limit's worth of completions and one target latency,
+                // so a single burst of slow requests cannot collapse the limit
+                if (completionsSinceDecrease >= currentLimit() && now - lastDecreaseNanos >= targetLatencyNanos) {
+                    limit = Math.max(minLimit, limit * DECREASE_FACTOR);
+                    completionsSinceDecrease = 0;
+                    lastDecreaseNanos = now;
+                }
+            } else {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.stripe.poc.service;
+
+import com.stripe.poc.model.CustomerSummary;
+import com.stripe.poc.model.Product;
+import com.stripe.poc.model.SessionSnapshot;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Materialized per-customer purchase summaries
+ *
+ * Summaries are keyed by normalized email and updated incrementally from
+ * session changes, so reading one never touches Stripe. Stored summaries are
+ * replaced rather than mutated, which lets readers use them without locking.
+ */
+@Service
+public class CustomerSummaryService implements SessionChangeListener {
+
+    private final ConcurrentMap<String, CustomerSummary> summaries = new ConcurrentHashMap<>();
+    private final Set<String> historyLoaded = ConcurrentHashMap.newKeySet();
+    private final ProductService productService;
+
+    public CustomerSummaryService(ProductService productService) {
+        this.productService = productService;
+    }
+
+    /**
+     * Normalize an email address for use as a summary key
+     */
+    public static String normalizeEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        String normalized = email.trim().toLowerCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    @Override
+    public void onSessionChanged(SessionSnapshot previous, SessionSnapshot current) {
+        String previousKey = previous != null ? normalizeEmail(previous.getCustomerEmail()) : null;
+        String currentKey = normalizeEmail(current.getCustomerEmail());
+
+        if (previousKey != null && !previousKey.equals(currentKey)) {
+            summaries.computeIfPresent(previousKey, (key, existing) -> {
+                CustomerSummary next = new CustomerSummary(existing);
+                apply(next, previous, -1);
+                return next.getSessionCount() > 0 ? next : null;
+            });
+        }
+        if (currentKey != null) {
+            summaries.compute(currentKey, (key, existing) -> {
+                CustomerSummary next = existing != null ? new CustomerSummary(existing) : new CustomerSummary(key);
+                if (previous != null && key.equals(previousKey)) {
+                    apply(next, previous, -1);
+                }
+                apply(next, current, 1);
+                return next;
+            });
+        }
+    }
+
+    /**
+     * Whether a customer's full history has been loaded from Stripe
+     * 
+     * Until it has, a summary only reflects the sessions this instance
+     * happened to see and must not be served as a lifetime total.
+     */
+    public boolean isHistoryLoaded(String email) {
+        String key = normalizeEmail(email);
+        return key != null && historyLoaded.contains(key);
+    }
+
+    /**
+     * Record that a customer's full history has been loaded; later sessions arrive incrementally
+     */
+    public void markHistoryLoaded(String email) {
+        String key = normalizeEmail(email);
+        if (key != null) {
+            historyLoaded.add(key);
+        }
+    }
+
+    /**
+     * Get the summary for a customer
+     */
+    public Optional<CustomerSummary> getSummary(String email) {
+        String key = normalizeEmail(email);
+        if (key == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(summaries.get(key)).map(CustomerSummary::new);
+    }
+
+    /**
+     * Get the customers with the highest lifetime spend in a currency, highest first
+     * @param currency Currency to rank by; amounts in other currencies are not converted
+     * @param limit Maximum number of customers to return
+     */
+    public List<CustomerSummary> getTopCustomersByRevenue(String currency, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        String key = currency.trim().toLowerCase(Locale.ROOT);
+
+        // Bounded min-heap: the smallest of the current top N sits at the head
+        Comparator<CustomerSummary> byRevenue = Comparator
+                .comparingLong((CustomerSummary summary) -> summary.getLifetimeSpend(key))
+                .thenComparing(CustomerSummary::getEmail, Comparator.reverseOrder());
+        PriorityQueue<CustomerSummary> heap = new PriorityQueue<>(limit + 1, byRevenue);
+        for (CustomerSummary summary : summaries.values()) {
+            if (summary.getLifetimeSpend(key) <= 0) {
+                continue;
+            }
+            if (heap.size() < limit) {
+                heap.offer(summary);
+            } else if (byRevenue.compare(summary, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(summary);
+            }
+        }
+
+        List<CustomerSummary> top = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            top.add(new CustomerSummary(heap.poll()));
+        }
+        Collections.reverse(top);
+        return top;
+    }
+
+    private void apply(CustomerSummary summary, SessionSnapshot session, int sign) {
+        summary.setSessionCount(summary.getSessionCount() + sign);
+        if (!session.isPaid()) {
+            return;
+        }
+
+        long amount = session.getAmountTotal() != null ? session.getAmountTotal() : 0L;
+        if (session.getCurrency() != null) {
+            // Totals are kept per currency; amounts are never converted
+            summary.getLifetimeSpend().merge(session.getCurrency(), sign * amount,
+                    (total, delta) -> total + delta == 0 ? null : total + delta);
+        }
+        summary.setPaidSessionCount(summary.getPaidSessionCount() + sign);
+
+        // Checkout payments are never un-paid, so the latest purchase only moves forward
+        Long created = session.getCreated();
+        if (sign > 0 && created != null
+                && (summary.getLastPurchase() == null || created >= summary.getLastPurchase())) {
+            summary.setLastPurchase(created);
+            resolveTier(session).ifPresent(product -> summary.setCurrentTier(product.getName()));
+        }
+    }
+
+    private Optional<Product> resolveTier(SessionSnapshot session) {
+        if (session.getProductId() != null) {
+            Optional<Product> product = productService.getProductById(session.getProductId());
+            if (product.isPresent()) {
+                return product;
+            }
+        }
+        // Sessions created elsewhere carry no metadata; fall back to the amount paid
+        return productService.getProductByPrice(session.getAmountTotal());
+    }
+}
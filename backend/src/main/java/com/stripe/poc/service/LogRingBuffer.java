@@ -0,0 +1,72 @@
+package com.stripe.poc.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free multi-producer, single-consumer ring buffer
+ *
+ * Producers claim a slot by CAS on the tail and publish into it; the single
+ * consumer clears slots in order and advances the head. When the buffer is
+ * full, offers fail instead of blocking, so a stalled consumer can never slow
+ * down request threads.
+ */
+class LogRingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    LogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1) << 1);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Add an element, or drop it if the buffer is full
+     * @return false if the element was dropped
+     */
+    boolean offer(T element) {
+        while (true) {
+            long claimed = tail.get();
+            if (claimed - head.get() >= slots.length()) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            if (tail.compareAndSet(claimed, claimed + 1)) {
+                slots.set((int) (claimed & mask), element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Hand published elements to the consumer in order; single consumer thread only
+     * @return Number of elements drained
+     */
+    int drain(Consumer<T> consumer, int max) {
+        long position = head.get();
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (position & mask);
+            T element = slots.get(index);
+            if (element == null) {
+                break; // Empty, or claimed but not yet published
+            }
+            slots.lazySet(index, null);
+            position++;
+            head.lazySet(position);
+            consumer.accept(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+}
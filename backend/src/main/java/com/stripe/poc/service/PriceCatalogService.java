@@ -0,0 +1,111 @@
+package com.stripe.poc.service;
+
+import com.stripe.Stripe;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Price;
+import com.stripe.param.checkout.SessionCreateParams;
+import com.stripe.poc.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process catalog of the Stripe Price IDs we sell
+ *
+ * Indexes the product tiers by Stripe Price ID so checkout requests can be
+ * validated without a Stripe round trip, and keeps a periodically refreshed
+ * cache of the matching Stripe Price objects so retired prices are rejected too.
+ */
+@Service
+@Lazy(false) // Scheduled refresh must start even when lazy initialization is enabled
+public class PriceCatalogService {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceCatalogService.class);
+
+    @Value("${stripe.secret-key}")
+    private String stripeSecretKey;
+
+    private final Map<String, Product> productsByPriceId;
+    private final Map<String, List<SessionCreateParams.LineItem>> lineItemsByPriceId;
+    private final Map<String, Price> stripePrices = new ConcurrentHashMap<>();
+
+    public PriceCatalogService(ProductService productService) {
+        Map<String, Product> products = new HashMap<>();
+        Map<String, List<SessionCreateParams.LineItem>> lineItems = new HashMap<>();
+        for (Product product : productService.getAllProducts()) {
+            String priceId = product.getStripePriceId();
+            if (priceId == null || priceId.isEmpty()) {
+                continue;
+            }
+            products.put(priceId, product);
+            // Line items never change per price, so build them once up front
+            lineItems.put(priceId, Collections.singletonList(
+                SessionCreateParams.LineItem.builder()
+                    .setQuantity(1L)
+                    .setPrice(priceId)
+                    .build()
+            ));
+        }
+        this.productsByPriceId = Collections.unmodifiableMap(products);
+        this.lineItemsByPriceId = Collections.unmodifiableMap(lineItems);
+    }
+
+    /**
+     * Check whether a price ID is sellable: it must belong to one of our
+     * products and must not have been archived in Stripe
+     */
+    public boolean isValidPrice(String priceId) {
+        if (priceId == null || !productsByPriceId.containsKey(priceId)) {
+            return false;
+        }
+        // Prices we could not fetch yet are given the benefit of the doubt
+        Price price = stripePrices.get(priceId);
+        return price == null || !Boolean.FALSE.equals(price.getActive());
+    }
+
+    /**
+     * Find the product tier sold under a Stripe Price ID
+     */
+    public Optional<Product> getProductByPriceId(String priceId) {
+        return Optional.ofNullable(priceId).map(productsByPriceId::get);
+    }
+
+    /**
+     * Get the pre-built checkout line items for a price ID
+     */
+    public List<SessionCreateParams.LineItem> getLineItems(String priceId) {
+        List<SessionCreateParams.LineItem> lineItems = lineItemsByPriceId.get(priceId);
+        if (lineItems == null) {
+            throw new IllegalArgumentException("Unknown price ID: " + priceId);
+        }
+        return lineItems;
+    }
+
+    /**
+     * Refresh the cached Stripe Price objects
+     *
+     * Runs on the scheduler thread so request threads never wait on it. A failed
+     * fetch keeps the previously cached object for that price.
+     */
+    @Scheduled(
+        initialDelayString = "${app.price-catalog.initial-delay-ms:300000}",
+        fixedDelayString = "${app.price-catalog.refresh-interval-ms:300000}"
+    )
+    public void refreshStripePrices() {
+        Stripe.apiKey = stripeSecretKey;
+
+        for (String priceId : productsByPriceId.keySet()) {
+            try {
+                stripePrices.put(priceId, Price.retrieve(priceId));
+            } catch (StripeException e) {
+                log.warn("Failed to refresh Stripe price {}: {}", priceId, e.getMessage());
+            }
+        }
+    }
+}
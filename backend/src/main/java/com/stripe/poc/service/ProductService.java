@@ -92,6 +92,15 @@ public class ProductService {
                 .findFirst();
     }
 
+    /**
+     * Get product by price in cents
+     */
+    public Optional<Product> getProductByPrice(Long price) {
+        return products.stream()
+                .filter(product -> product.getPrice().equals(price))
+                .findFirst();
+    }
+
     /**
      * Validate if product exists and is available
      */
@@ -0,0 +1,79 @@
+package com.stripe.poc.service;
+
+import com.stripe.poc.model.StripeCall;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Per-request trace of the Stripe API calls made while serving it
+ *
+ * Bound to the request thread by the access log filter. Work handed to other
+ * threads on the request's behalf carries the trace along with
+ * {@link #propagate}, so a trace can be appended to from several threads.
+ */
+public final class RequestTrace {
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final List<StripeCall> stripeCalls = new CopyOnWriteArrayList<>();
+
+    private RequestTrace() {}
+
+    /**
+     * Start a trace on the current thread
+     */
+    public static RequestTrace start() {
+        RequestTrace trace = new RequestTrace();
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * Get the trace bound to the current thread, or null
+     */
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Unbind the trace from the current thread
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Wrap a task so it runs with the given trace bound to whichever thread executes it
+     */
+    public static <T> Callable<T> propagate(RequestTrace trace, Callable<T> task) {
+        if (trace == null) {
+            return task;
+        }
+        return () -> {
+            RequestTrace previous = CURRENT.get();
+            CURRENT.set(trace);
+            try {
+                return task.call();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+
+    public void addStripeCall(StripeCall call) {
+        stripeCalls.add(call);
+    }
+
+    /**
+     * Calls recorded so far; calls still running on other threads may be added later
+     */
+    public List<StripeCall> getStripeCalls() {
+        return List.copyOf(stripeCalls);
+    }
+}
@@ -0,0 +1,238 @@
+package com.stripe.poc.service;
+
+import com.stripe.poc.model.SessionSnapshot;
+import com.stripe.poc.model.TimeSeriesPoint;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pre-aggregated revenue and conversion time series
+ *
+ * Session changes are folded into minute, hour and day buckets as they
+ * happen, each held in a fixed-size ring buffer, so serving a chart costs a
+ * constant amount per bucket returned. Sessions are bucketed by creation time,
+ * which makes each bucket's paid count the conversions of the sessions opened in it.
+ * Every currency has its own set of rings, so amounts are never summed across
+ * currencies.
+ */
+@Service
+public class RevenueRollupService implements SessionChangeListener {
+
+    /**
+     * Supported bucket sizes
+     */
+    public enum Granularity {
+        MINUTE(60L),
+        HOUR(3_600L),
+        DAY(86_400L);
+
+        private final long seconds;
+
+        Granularity(long seconds) {
+            this.seconds = seconds;
+        }
+
+        public long getSeconds() {
+            return seconds;
+        }
+
+        public static Granularity parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new IllegalArgumentException("Unsupported granularity: " + value
+                        + " (expected minute, hour or day)");
+            }
+        }
+    }
+
+    private final Map<Granularity, Integer> retention = new EnumMap<>(Granularity.class);
+    private final ConcurrentMap<String, Map<Granularity, RollupRing>> ringsByCurrency = new ConcurrentHashMap<>();
+
+    public RevenueRollupService(
+            @Value("${app.rollups.minute-retention:1440}") int minuteRetention,
+            @Value("${app.rollups.hour-retention:720}") int hourRetention,
+            @Value("${app.rollups.day-retention:365}") int dayRetention) {
+        if (minuteRetention <= 0 || hourRetention <= 0 || dayRetention <= 0) {
+            throw new IllegalArgumentException("Rollup retention must be positive");
+        }
+        retention.put(Granularity.MINUTE, minuteRetention);
+        retention.put(Granularity.HOUR, hourRetention);
+        retention.put(Granularity.DAY, dayRetention);
+    }
+
+    @Override
+    public void onSessionChanged(SessionSnapshot previous, SessionSnapshot current) {
+        // Take the previous state's contribution back out and add the current one, like the
+        // customer summaries do, so any sequence of changes nets out to the latest state
+        if (previous != null && Objects.equals(previous.getCreated(), current.getCreated())
+                && Objects.equals(previous.getCurrency(), current.getCurrency())) {
+            add(current.getCurrency(), current.getCreated(), 0,
+                    paidCount(current) - paidCount(previous),
+                    revenue(current) - revenue(previous));
+            return;
+        }
+        if (previous != null) {
+            add(previous.getCurrency(), previous.getCreated(), -1, -paidCount(previous), -revenue(previous));
+        }
+        add(current.getCurrency(), current.getCreated(), 1, paidCount(current), revenue(current));
+    }
+
+    private void add(String currency, Long created, long opened, long paid, long revenue) {
+        if (currency == null || created == null || (opened == 0 && paid == 0 && revenue == 0)) {
+            return;
+        }
+        for (RollupRing ring : ringsFor(currency).values()) {
+            ring.add(created, opened, paid, revenue);
+        }
+    }
+
+    private Map<Granularity, RollupRing> ringsFor(String currency) {
+        String key = currency.toLowerCase(Locale.ROOT);
+        Map<Granularity, RollupRing> rings = ringsByCurrency.get(key);
+        if (rings != null) {
+            return rings;
+        }
+        return ringsByCurrency.computeIfAbsent(key, k -> {
+            Map<Granularity, RollupRing> created = new EnumMap<>(Granularity.class);
+            for (Granularity granularity : Granularity.values()) {
+                created.put(granularity, new RollupRing(granularity.getSeconds(), retention.get(granularity)));
+            }
+            return created;
+        });
+    }
+
+    private static long paidCount(SessionSnapshot session) {
+        return session.isPaid() ? 1 : 0;
+    }
+
+    private static long revenue(SessionSnapshot session) {
+        return session.isPaid() && session.getAmountTotal() != null ? session.getAmountTotal() : 0;
+    }
+
+    /**
+     * Get the most recent buckets at a granularity for one currency, oldest first
+     * @param currency Currency of the sessions to include
+     * @param granularity Bucket size
+     * @param points Number of buckets to return, capped at the retention
+     * @param now Current time in epoch seconds
+     */
+    public List<TimeSeriesPoint> getTimeSeries(String currency, Granularity granularity, int points, long now) {
+        Map<Granularity, RollupRing> rings = ringsByCurrency.get(currency.trim().toLowerCase(Locale.ROOT));
+        if (rings == null) {
+            // No sessions in this currency yet: same shape as a ring with nothing in it
+            return new RollupRing(granularity.getSeconds(), retention.get(granularity)).read(now, points);
+        }
+        return rings.get(granularity).read(now, points);
+    }
+
+    /**
+     * Fixed-size ring of consecutive buckets
+     *
+     * Listeners run under the session store's shard write locks, so adds must not
+     * take a lock of their own or every shard would queue up behind it. Each
+     * slot holds an immutable-start bucket of striped counters; rolling a slot
+     * over to a newer bucket is a single CAS, and an add that races with the
+     * roll-over lands in the expired bucket and is dropped with it. Reads are
+     * not atomic across a bucket's counters.
+     */
+    private static class RollupRing {
+
+        private final long bucketSeconds;
+        private final int capacity;
+        private final AtomicReferenceArray<Bucket> buckets;
+        private final AtomicLong latestStart = new AtomicLong(Long.MIN_VALUE);
+
+        RollupRing(long bucketSeconds, int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("Rollup retention must be positive");
+            }
+            this.bucketSeconds = bucketSeconds;
+            this.capacity = capacity;
+            this.buckets = new AtomicReferenceArray<>(capacity);
+        }
+
+        void add(long timestamp, long openedDelta, long paidDelta, long revenueDelta) {
+            long start = Math.floorDiv(timestamp, bucketSeconds) * bucketSeconds;
+            long latest = latestStart.get();
+            if (latest != Long.MIN_VALUE && start <= latest - capacity * bucketSeconds) {
+                return; // Older than the retention window
+            }
+            if (start > latest) {
+                latestStart.accumulateAndGet(start, Math::max);
+            }
+
+            int slot = slot(start);
+            while (true) {
+                Bucket bucket = buckets.get(slot);
+                if (bucket != null && bucket.start == start) {
+                    bucket.add(openedDelta, paidDelta, revenueDelta);
+                    return;
+                }
+                if (bucket != null && bucket.start > start) {
+                    return; // The slot has already moved on to a newer bucket
+                }
+                Bucket fresh = new Bucket(start);
+                if (buckets.compareAndSet(slot, bucket, fresh)) {
+                    fresh.add(openedDelta, paidDelta, revenueDelta);
+                    return;
+                }
+            }
+        }
+
+        List<TimeSeriesPoint> read(long now, int points) {
+            int count = Math.min(Math.max(points, 0), capacity);
+            long lastStart = Math.floorDiv(now, bucketSeconds) * bucketSeconds;
+
+            List<TimeSeriesPoint> series = new ArrayList<>(count);
+            for (long start = lastStart - (count - 1) * bucketSeconds; start <= lastStart; start += bucketSeconds) {
+                Bucket bucket = buckets.get(slot(start));
+                if (bucket != null && bucket.start == start) {
+                    series.add(new TimeSeriesPoint(start, bucket.opened.sum(), bucket.paid.sum(), bucket.revenue.sum()));
+                } else {
+                    series.add(new TimeSeriesPoint(start, 0, 0, 0));
+                }
+            }
+            return series;
+        }
+
+        private int slot(long start) {
+            return (int) Math.floorMod(start / bucketSeconds, (long) capacity);
+        }
+    }
+
+    private static final class Bucket {
+        private final long start;
+        private final LongAdder opened = new LongAdder();
+        private final LongAdder paid = new LongAdder();
+        private final LongAdder revenue = new LongAdder();
+
+        private Bucket(long start) {
+            this.start = start;
+        }
+
+        private void add(long openedDelta, long paidDelta, long revenueDelta) {
+            if (openedDelta != 0) {
+                opened.add(openedDelta);
+            }
+            if (paidDelta != 0) {
+                paid.add(paidDelta);
+            }
+            if (revenueDelta != 0) {
+                revenue.add(revenueDelta);
+            }
+        }
+    }
+}
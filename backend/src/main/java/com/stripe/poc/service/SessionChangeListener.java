@@ -0,0 +1,16 @@
+package com.stripe.poc.service;
+
+import com.stripe.poc.model.SessionSnapshot;
+
+/**
+ * Callback for components that maintain derived views of checkout sessions
+ */
+public interface SessionChangeListener {
+
+    /**
+     * Called once for every change to a tracked session, in order per session
+     * @param previous The previously known state, or null for a newly seen session
+     * @param current The new state
+     */
+    void onSessionChanged(SessionSnapshot previous, SessionSnapshot current);
+}
@@ -0,0 +1,91 @@
+package com.stripe.poc.service;
+
+import com.stripe.poc.model.SessionSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over every checkout session ID this instance has seen
+ *
+ * A negative answer means the ID was definitely never recorded, which lets
+ * bulk lookups skip the Stripe call for it. Bits are set with CAS so writers
+ * never block each other or readers.
+ */
+@Service
+public class SessionIdFilter implements SessionChangeListener {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    public SessionIdFilter(
+            @Value("${app.session-lookup.filter-expected-ids:1000000}") long expectedIds,
+            @Value("${app.session-lookup.filter-false-positive-rate:0.01}") double falsePositiveRate) {
+        // Standard sizing: m = -n ln p / (ln 2)^2, k = m / n ln 2
+        long bitsNeeded = (long) Math.ceil(-expectedIds * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (bitsNeeded + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = words * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedIds * Math.log(2)));
+    }
+
+    @Override
+    public void onSessionChanged(SessionSnapshot previous, SessionSnapshot current) {
+        if (previous == null) {
+            add(current.getId());
+        }
+    }
+
+    /**
+     * Add a session ID to the filter
+     */
+    public void add(String sessionId) {
+        long hash = hash(sessionId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    /**
+     * Check whether a session ID may have been added
+     * @return false if the ID was definitely never added
+     */
+    public boolean mightContain(String sessionId) {
+        long hash = hash(sessionId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(String value) {
+        // 64-bit FNV-1a followed by a murmur finalizer to spread the bits
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,216 @@
+package com.stripe.poc.service;
+
+import com.stripe.model.checkout.Session;
+import com.stripe.poc.model.SessionSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Latest known state of every checkout session this instance has seen
+ *
+ * Every session returned by Stripe is recorded here, and registered
+ * listeners are told about each actual change so they can keep their
+ * derived views up to date incrementally.
+ *
+ * Sessions are partitioned by ID hash into independent shards so webhook,
+ * sync and checkout writers on different cores rarely meet. Each shard has
+ * its own write lock, held across the listener calls to keep them in order
+ * per session, and a short publish lock held only while the map is updated,
+ * during which its version counter is odd. Single reads never lock; snapshots
+ * copy each shard optimistically and retry it if its version moved.
+ */
+@Service
+public class SessionStateStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionStateStore.class);
+
+    private static final int SNAPSHOT_RETRIES = 16;
+
+    private final Shard[] shards;
+    private final int mask;
+    private final List<SessionChangeListener> listeners;
+
+    public SessionStateStore(List<SessionChangeListener> listeners,
+                             @Value("${app.session-store.shards:0}") int shardCount) {
+        // Default to a few shards per core, rounded up to a power of two
+        int requested = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors() * 4;
+        int size = Integer.highestOneBit(Math.max(1, requested - 1) << 1);
+        this.shards = new Shard[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard();
+        }
+        this.mask = size - 1;
+        this.listeners = listeners;
+    }
+
+    /**
+     * Record the current state of a Stripe session
+     */
+    public void record(Session session) {
+        record(SessionSnapshot.from(session));
+    }
+
+    /**
+     * Record a session snapshot, notifying listeners if it moved the session forward
+     */
+    public void record(SessionSnapshot snapshot) {
+        Shard shard = shardFor(snapshot.getId());
+        shard.writeLock.lock();
+        try {
+            SessionSnapshot previous = shard.sessions.get(snapshot.getId());
+            if (snapshot.equals(previous) || (previous != null && snapshot.isBehind(previous))) {
+                return; // Unchanged, or a stale read that would roll the session back
+            }
+            shard.publish(snapshot);
+
+            // Listeners run under the write lock so changes to one session are seen in order
+            for (SessionChangeListener listener : listeners) {
+                try {
+                    listener.onSessionChanged(previous, snapshot);
+                } catch (RuntimeException e) {
+                    // A broken derived view must not fail the Stripe call that produced the session
+                    log.warn("Session listener {} failed for {}", listener.getClass().getSimpleName(),
+                            snapshot.getId(), e);
+                }
+            }
+        } finally {
+            shard.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Get the last known state of a session
+     */
+    public Optional<SessionSnapshot> get(String sessionId) {
+        return Optional.ofNullable(shardFor(sessionId).sessions.get(sessionId));
+    }
+
+    /**
+     * Copy all tracked sessions, each shard as of a single point in time
+     */
+    List<SessionSnapshot> snapshot() {
+        List<SessionSnapshot> sessions = new ArrayList<>(size());
+        for (Shard shard : shards) {
+            shard.copyInto(sessions);
+        }
+        return sessions;
+    }
+
+    /**
+     * Copy each shard separately, along with the version it was copied at
+     */
+    List<ShardSnapshot> snapshotShards() {
+        List<ShardSnapshot> snapshots = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            List<SessionSnapshot> sessions = new ArrayList<>();
+            long version = shard.copyInto(sessions);
+            snapshots.add(new ShardSnapshot(version / 2, sessions));
+        }
+        return snapshots;
+    }
+
+    /**
+     * Total number of changes recorded across all shards
+     */
+    long getVersion() {
+        long version = 0;
+        for (Shard shard : shards) {
+            version += shard.version / 2;
+        }
+        return version;
+    }
+
+    /**
+     * Number of sessions tracked
+     */
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.sessions.size();
+        }
+        return size;
+    }
+
+    /**
+     * Index of the shard a session belongs to
+     */
+    int shardIndex(String sessionId) {
+        int hash = sessionId.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private Shard shardFor(String sessionId) {
+        return shards[shardIndex(sessionId)];
+    }
+
+    /**
+     * One shard's sessions as of a single point in its write history
+     */
+    static final class ShardSnapshot {
+        final long version; // Number of changes the copy reflects
+        final List<SessionSnapshot> sessions;
+
+        private ShardSnapshot(long version, List<SessionSnapshot> sessions) {
+            this.version = version;
+            this.sessions = sessions;
+        }
+    }
+
+    private static final class Shard {
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private final ReentrantLock publishLock = new ReentrantLock();
+        private final ConcurrentMap<String, SessionSnapshot> sessions = new ConcurrentHashMap<>();
+        private volatile long version; // Odd while a write is in progress
+
+        /**
+         * Store a session; caller holds the write lock
+         */
+        private void publish(SessionSnapshot snapshot) {
+            publishLock.lock();
+            try {
+                version++;
+                sessions.put(snapshot.getId(), snapshot);
+                version++;
+            } finally {
+                publishLock.unlock();
+            }
+        }
+
+        /**
+         * Append this shard's sessions to the target and return the version they were copied at
+         */
+        private long copyInto(List<SessionSnapshot> target) {
+            int mark = target.size();
+            for (int attempt = 0; attempt < SNAPSHOT_RETRIES; attempt++) {
+                long before = version;
+                if ((before & 1) == 0) {
+                    target.addAll(sessions.values());
+                    if (version == before) {
+                        return before;
+                    }
+                    target.subList(mark, target.size()).clear();
+                }
+                Thread.onSpinWait();
+            }
+
+            // Sustained write traffic on this shard: block writes for one copy rather than spin forever,
+            // without waiting behind the listeners of a write in progress
+            publishLock.lock();
+            try {
+                target.addAll(sessions.values());
+                return version;
+            } finally {
+                publishLock.unlock();
+            }
+        }
+    }
+}
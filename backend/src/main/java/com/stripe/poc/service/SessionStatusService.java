@@ -0,0 +1,231 @@
+package com.stripe.poc.service;
+
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import com.stripe.poc.model.BulkSessionStatusResponse;
+import com.stripe.poc.model.SessionSnapshot;
+import com.stripe.poc.model.SessionStatusResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk checkout session status lookups
+ *
+ * Answers from local session state where it can be trusted, skips IDs the
+ * session ID filter has never seen, and fetches the rest from Stripe in parallel.
+ *
+ * The filter is seeded in the background with the sessions created in a
+ * bounded window (app.session-lookup.seed-window-days) and is then kept
+ * current by a scheduled sync that lists sessions created since the last
+ * one, together with every session still young enough to be open, so that
+ * sessions completed or expired elsewhere reach the local state too. Lookups never wait for a sync: a filter miss is answered from the last
+ * completed sync, and the response says which creation window that sync
+ * covered and when it ran so callers can retry an unknown ID after the next one.
+ */
+@Service
+@Lazy(false) // Scheduled sync must start even when lazy initialization is enabled
+public class SessionStatusService {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionStatusService.class);
+
+    /** Re-list this far behind the last sync in case sessions become visible late */
+    private static final long SYNC_OVERLAP_SECONDS = 60;
+
+    private final StripeCheckoutService checkoutService;
+    private final SessionStateStore sessionStateStore;
+    private final SessionIdFilter sessionIdFilter;
+    private final ExecutorService executor;
+
+    @Value("${app.session-lookup.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @Value("${app.session-lookup.seed-window-days:30}")
+    private long seedWindowDays;
+
+    @Value("${app.session-lookup.resync-window-hours:24}")
+    private long resyncWindowHours;
+
+    // Set once the seed load completes; until then filter misses go to Stripe
+    private volatile boolean filterReady;
+
+    // Creation window the filter covers (epoch seconds), as of the start of the last completed sync
+    private volatile long filterCoversSince;
+    private volatile long filterSyncedAt;
+
+    // Guarded by this: start of the last completed sync; every session created before it has been listed
+    private Long syncedThrough;
+
+    public SessionStatusService(StripeCheckoutService checkoutService,
+                                SessionStateStore sessionStateStore,
+                                SessionIdFilter sessionIdFilter,
+                                @Value("${app.session-lookup.parallelism:8}") int parallelism) {
+        this.checkoutService = checkoutService;
+        this.sessionStateStore = sessionStateStore;
+        this.sessionIdFilter = sessionIdFilter;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "session-lookup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Seed the session ID filter in the background once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedSessionIdFilter() {
+        Thread seeder = new Thread(this::scheduledSync, "session-id-seed");
+        seeder.setDaemon(true);
+        seeder.start();
+    }
+
+    /**
+     * Keep the session ID filter current with sessions created elsewhere
+     */
+    @Scheduled(initialDelayString = "${app.session-lookup.sync-interval-ms:60000}",
+               fixedDelayString = "${app.session-lookup.sync-interval-ms:60000}")
+    public void scheduledSync() {
+        try {
+            syncSessionIds();
+        } catch (StripeException e) {
+            log.warn("Session ID sync failed, filter misses are answered from the last completed sync: {}",
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Load sessions created since the last sync, or within the seed window on the first run
+     */
+    private synchronized void syncSessionIds() throws StripeException {
+        long started = Instant.now().getEpochSecond();
+        // Re-list everything still inside Checkout's expiry window too: those sessions can still be
+        // paid or expire without this instance seeing it
+        long createdGte = syncedThrough != null
+                ? Math.min(syncedThrough - SYNC_OVERLAP_SECONDS, started - TimeUnit.HOURS.toSeconds(resyncWindowHours))
+                : started - TimeUnit.DAYS.toSeconds(seedWindowDays);
+        checkoutService.loadSessionsCreatedSince(createdGte);
+        syncedThrough = started;
+        filterSyncedAt = started;
+        if (!filterReady) {
+            filterCoversSince = createdGte;
+            filterReady = true;
+            log.info("Session ID filter seeded with the last {} days of sessions ({} sessions tracked)",
+                    seedWindowDays, sessionStateStore.size());
+        }
+    }
+
+    /**
+     * Look up the status of many sessions at once
+     * @param sessionIds The session IDs to look up; duplicates are answered once
+     * @return Per-ID status map with a latency breakdown
+     */
+    public BulkSessionStatusResponse getStatuses(List<String> sessionIds) {
+        long start = System.nanoTime();
+        BulkSessionStatusResponse.Latency latency = new BulkSessionStatusResponse.Latency();
+        Map<String, SessionStatusResult> statuses = new LinkedHashMap<>();
+        List<String> misses = new ArrayList<>();
+        boolean trustFilter = filterReady;
+
+        for (String sessionId : new LinkedHashSet<>(sessionIds)) {
+            statuses.put(sessionId, null); // Keeps the caller's order
+            if (answerLocally(sessionId, statuses, latency)) {
+                continue;
+            }
+            if (trustFilter && !sessionIdFilter.mightContain(sessionId)) {
+                statuses.put(sessionId, new SessionStatusResult("unknown", null, SessionStatusResult.SOURCE_FILTER));
+                latency.setFiltered(latency.getFiltered() + 1);
+            } else {
+                misses.add(sessionId);
+            }
+        }
+        long localDone = System.nanoTime();
+        latency.setLocalMicros((localDone - start) / 1_000);
+
+        if (!misses.isEmpty()) {
+            fetchFromStripe(misses, statuses, latency);
+        }
+
+        long end = System.nanoTime();
+        latency.setStripeMicros((end - localDone) / 1_000);
+        latency.setTotalMicros((end - start) / 1_000);
+        BulkSessionStatusResponse response = new BulkSessionStatusResponse(statuses, latency);
+        if (trustFilter) {
+            response.setFilterCoversSince(filterCoversSince);
+            response.setFilterSyncedAt(filterSyncedAt);
+        }
+        return response;
+    }
+
+    private boolean answerLocally(String sessionId, Map<String, SessionStatusResult> statuses,
+                                  BulkSessionStatusResponse.Latency latency) {
+        Optional<SessionSnapshot> local = sessionStateStore.get(sessionId);
+        // Only final sessions can be answered locally; anything else may have moved on since
+        if (local.isPresent() && local.get().isFinal()) {
+            statuses.put(sessionId, SessionStatusResult.of(local.get(), SessionStatusResult.SOURCE_LOCAL));
+            latency.setLocalHits(latency.getLocalHits() + 1);
+            return true;
+        }
+        return false;
+    }
+
+    private void fetchFromStripe(List<String> sessionIds, Map<String, SessionStatusResult> statuses,
+                                 BulkSessionStatusResponse.Latency latency) {
+        // Stripe calls made on the lookup pool belong to the caller's request
+        RequestTrace trace = RequestTrace.current();
+        Map<String, Future<Session>> futures = new LinkedHashMap<>();
+        for (String sessionId : sessionIds) {
+            futures.put(sessionId, executor.submit(
+                    RequestTrace.propagate(trace, () -> checkoutService.getCheckoutSession(sessionId))));
+        }
+        latency.setStripeFetches(futures.size());
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        for (Map.Entry<String, Future<Session>> entry : futures.entrySet()) {
+            SessionStatusResult result;
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                Session session = entry.getValue().get(remaining, TimeUnit.NANOSECONDS);
+                result = new SessionStatusResult(session.getStatus(), session.getPaymentStatus(),
+                        SessionStatusResult.SOURCE_STRIPE);
+            } catch (ExecutionException e) {
+                result = stripeError(e.getCause());
+            } catch (TimeoutException e) {
+                entry.getValue().cancel(true);
+                result = SessionStatusResult.error("error", SessionStatusResult.SOURCE_STRIPE, "Timed out");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                entry.getValue().cancel(true);
+                result = SessionStatusResult.error("error", SessionStatusResult.SOURCE_STRIPE, "Interrupted");
+            }
+            if (result.getError() != null) {
+                latency.setStripeErrors(latency.getStripeErrors() + 1);
+            }
+            statuses.put(entry.getKey(), result);
+        }
+    }
+
+    private SessionStatusResult stripeError(Throwable cause) {
+        if (cause instanceof StripeException && "resource_missing".equals(((StripeException) cause).getCode())) {
+            return SessionStatusResult.error("not_found", SessionStatusResult.SOURCE_STRIPE, cause.getMessage());
+        }
+        return SessionStatusResult.error("error", SessionStatusResult.SOURCE_STRIPE, cause.getMessage());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,13 +1,20 @@
 package com.stripe.poc.service;
 
 import com.stripe.Stripe;
+import com.stripe.exception.EventDataObjectDeserializationException;
+import com.stripe.exception.SignatureVerificationException;
 import com.stripe.exception.StripeException;
+import com.stripe.model.Event;
+import com.stripe.model.StripeObject;
 import com.stripe.model.checkout.Session;
 import com.stripe.model.checkout.SessionCollection;
+import com.stripe.net.Webhook;
 import com.stripe.param.checkout.SessionCreateParams;
 import com.stripe.param.checkout.SessionListParams;
 import com.stripe.poc.model.CheckoutRequest;
 import com.stripe.poc.model.CheckoutResponse;
+import com.stripe.poc.model.SessionSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -19,32 +26,52 @@ import java.util.*;
 @Service
 public class StripeCheckoutService {
     
+    /** Events that change a session after creation, including async payments settling days later */
+    private static final Set<String> SESSION_EVENTS = Set.of(
+        "checkout.session.completed",
+        "checkout.session.async_payment_succeeded",
+        "checkout.session.async_payment_failed",
+        "checkout.session.expired"
+    );
+    
     @Value("${stripe.secret-key}")
     private String stripeSecretKey;
     
+    @Value("${stripe.webhook-secret:}")
+    private String webhookSecret;
+    
+    @Autowired
+    private PriceCatalogService priceCatalogService;
+    
+    @Autowired
+    private SessionStateStore sessionStateStore;
+    
     /**
      * Creates a Stripe Checkout session for the given request
      * @param request The checkout request containing price ID and customer info
      * @return CheckoutResponse with checkout URL and session details
      * @throws StripeException if session creation fails
+     * @throws IllegalArgumentException if the price ID is not in the catalog
      */
     public CheckoutResponse createCheckoutSession(CheckoutRequest request) throws StripeException {
+        // Reject unknown or retired prices before spending a Stripe round trip on them
+        if (!priceCatalogService.isValidPrice(request.getPriceId())) {
+            throw new IllegalArgumentException("Invalid price ID: " + request.getPriceId());
+        }
+        
         Stripe.apiKey = stripeSecretKey;
         
-        SessionCreateParams params = SessionCreateParams.builder()
+        SessionCreateParams.Builder builder = SessionCreateParams.builder()
             .setMode(SessionCreateParams.Mode.PAYMENT)
             .setSuccessUrl("http://localhost:4200/payment-success?session_id={CHECKOUT_SESSION_ID}")
             .setCancelUrl("http://localhost:4200/payment-cancel")
-            .addLineItem(
-                SessionCreateParams.LineItem.builder()
-                    .setQuantity(1L)
-                    .setPrice(request.getPriceId())
-                    .build()
-            )
-            .setCustomerEmail(request.getCustomerEmail())
-            .build();
+            .addAllLineItem(priceCatalogService.getLineItems(request.getPriceId()))
+            .setCustomerEmail(request.getCustomerEmail());
+        priceCatalogService.getProductByPriceId(request.getPriceId())
+            .ifPresent(product -> builder.putMetadata(SessionSnapshot.METADATA_PRODUCT_ID, product.getId()));
 
-        Session session = Session.create(params);
+        Session session = Session.create(builder.build());
+        sessionStateStore.record(session);
         
         return new CheckoutResponse(
             session.getUrl(),
@@ -62,7 +89,97 @@ public class StripeCheckoutService {
      */
     public Session getCheckoutSession(String sessionId) throws StripeException {
         Stripe.apiKey = stripeSecretKey;
-        return Session.retrieve(sessionId);
+        Session session = Session.retrieve(sessionId);
+        sessionStateStore.record(session);
+        return session;
+    }
+    
+    /**
+     * Load checkout sessions into the local session state, newest first
+     * @param createdGte Only load sessions created at or after this epoch second, or null for all
+     * @return Number of sessions loaded
+     * @throws StripeException if retrieval fails
+     */
+    public int loadSessionsCreatedSince(Long createdGte) throws StripeException {
+        Stripe.apiKey = stripeSecretKey;
+        
+        SessionListParams.Builder params = SessionListParams.builder()
+            .setLimit(100L);
+        if (createdGte != null) {
+            params.setCreated(SessionListParams.Created.builder()
+                .setGte(createdGte)
+                .build());
+        }
+        
+        int loaded = 0;
+        for (Session session : Session.list(params.build()).autoPagingIterable()) {
+            sessionStateStore.record(session);
+            loaded++;
+        }
+        
+        return loaded;
+    }
+    
+    /**
+     * Record the session carried by a Stripe webhook event
+     * @param payload Raw request body, exactly as received
+     * @param signature Value of the Stripe-Signature header
+     * @return true if the event carried a checkout session change
+     * @throws SignatureVerificationException if the event was not signed with our webhook secret
+     * @throws IllegalStateException if no webhook secret is configured
+     */
+    public boolean recordWebhookEvent(String payload, String signature) throws SignatureVerificationException {
+        if (webhookSecret == null || webhookSecret.isBlank()) {
+            throw new IllegalStateException("Webhook secret is not configured");
+        }
+        Event event = Webhook.constructEvent(payload, signature, webhookSecret);
+        if (!SESSION_EVENTS.contains(event.getType())) {
+            return false;
+        }
+        
+        StripeObject object = event.getDataObjectDeserializer().getObject().orElse(null);
+        if (object == null) {
+            // Event rendered with a different API version than the SDK's; the session fields we read are stable
+            try {
+                object = event.getDataObjectDeserializer().deserializeUnsafe();
+            } catch (EventDataObjectDeserializationException e) {
+                throw new IllegalArgumentException("Unreadable session in event " + event.getId(), e);
+            }
+        }
+        if (!(object instanceof Session)) {
+            return false;
+        }
+        sessionStateStore.record((Session) object);
+        return true;
+    }
+    
+    /**
+     * Load a customer's full checkout history into the local session state
+     * 
+     * Stripe filters on customer_details.email, which is filled in once the
+     * customer reaches the payment page, so sessions abandoned before that
+     * are not included.
+     * @param customerEmail The customer email to load
+     * @return Number of sessions loaded
+     * @throws StripeException if retrieval fails
+     */
+    public int loadCustomerSessions(String customerEmail) throws StripeException {
+        Stripe.apiKey = stripeSecretKey;
+        
+        SessionListParams params = SessionListParams.builder()
+            .setLimit(100L)
+            .setCustomerDetails(SessionListParams.CustomerDetails.builder()
+                .setEmail(customerEmail.trim())
+                .build())
+            .build();
+        
+        int loaded = 0;
+        for (Session session : Session.list(params).autoPagingIterable()) {
+            sessionStateStore.record(session);
+            loaded++;
+        }
+        
+        return loaded;
     }
     
     /**
@@ -81,6 +198,7 @@ public class StripeCheckoutService {
         
         List<Map<String, Object>> sessionList = new ArrayList<>();
         for (Session session : sessions.getData()) {
+            sessionStateStore.record(session);
             Map<String, Object> sessionData = new HashMap<>();
             sessionData.put("id", session.getId());
             sessionData.put("status", session.getStatus());
@@ -114,6 +232,7 @@ public class StripeCheckoutService {
         
         List<Map<String, Object>> customerSessions = new ArrayList<>();
         for (Session session : sessions.getData()) {
+            sessionStateStore.record(session);
             if (customerEmail.equals(session.getCustomerEmail())) {
                 Map<String, Object> sessionData = new HashMap<>();
                 sessionData.put("id", session.getId());
@@ -154,6 +273,7 @@ public class StripeCheckoutService {
         
         List<Map<String, Object>> sessionList = new ArrayList<>();
         for (Session session : sessions.getData()) {
+            sessionStateStore.record(session);
             Map<String, Object> sessionData = new HashMap<>();
             sessionData.put("id", session.getId());
             sessionData.put("status", session.getStatus());
@@ -0,0 +1,78 @@
+package com.stripe.poc.service;
+
+import com.stripe.poc.model.SessionSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Session store write throughput with the production listeners attached
+ *
+ * Each operation takes a new session through its lifecycle, recording it
+ * open and then paid, so both writes are real changes and the customer
+ * summaries, revenue rollups and session ID filter all do their normal work
+ * under the shard write lock. The store is rebuilt for every iteration. shards=1 is
+ * the single global lock baseline; shards=0 is the production default.
+ *
+ * Run with scripts/session-store-benchmark.sh.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionStateStoreBenchmark {
+
+    private static final int CUSTOMERS = 1_000;
+    private static final AtomicInteger WRITERS = new AtomicInteger();
+
+    @Param({"1", "0"})
+    public int shards;
+
+    private SessionStateStore store;
+    private long now;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ProductService productService = new ProductService();
+        List<SessionChangeListener> listeners = List.of(
+                new CustomerSummaryService(productService),
+                new RevenueRollupService(1440, 720, 365),
+                new SessionIdFilter(1_000_000, 0.01));
+        store = new SessionStateStore(listeners, shards);
+        now = Instant.now().getEpochSecond();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void record(Writer writer) {
+        long n = writer.next++;
+        String id = writer.prefix + n;
+        String email = "customer" + (n % CUSTOMERS) + "@example.com";
+        long created = now - (n % 86_400);
+        store.record(new SessionSnapshot(id, "open", "unpaid", email, 2900L, "usd", created, null));
+        store.record(new SessionSnapshot(id, "complete", "paid", email, 2900L, "usd", created, null));
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+        private final String prefix = "cs_bench_" + WRITERS.incrementAndGet() + "_";
+        private long next;
+    }
+}
@@ -0,0 +1,142 @@
+package com.stripe.poc.service;
+
+import com.stripe.poc.model.SessionSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concurrent writers and snapshot readers against the sharded session store
+ */
+class SessionStateStoreStressTest {
+
+    private static final int SHARDS = 16;
+    private static final int WRITERS = 8;
+    private static final int WRITES_PER_WRITER = 20_000;
+    private static final int SESSION_IDS = 500;
+    private static final int MAX_CAPTURED_SNAPSHOTS = 200;
+
+    @Test
+    void concurrentWritesKeepLastValueAndSnapshotsMatchOneVersionPerShard() throws Exception {
+        List<SessionChangeListener> listeners = new ArrayList<>();
+        SessionStateStore store = new SessionStateStore(listeners, SHARDS);
+        ChangeRecorder recorder = new ChangeRecorder(store, SHARDS);
+        listeners.add(recorder);
+
+        CountDownLatch startSignal = new CountDownLatch(1);
+        AtomicInteger writersLeft = new AtomicInteger(WRITERS);
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers.add(new Thread(() -> {
+                await(startSignal);
+                for (int i = 0; i < WRITES_PER_WRITER; i++) {
+                    // Writers share IDs, and every write carries a unique amount so none is skipped as unchanged
+                    long amount = (long) writer * WRITES_PER_WRITER + i;
+                    store.record(new SessionSnapshot("cs_" + (i * 31 + writer) % SESSION_IDS, "open", "unpaid",
+                            null, amount, "usd", null, null));
+                }
+                writersLeft.decrementAndGet();
+            }));
+        }
+
+        List<List<SessionStateStore.ShardSnapshot>> captured = new ArrayList<>();
+        Thread reader = new Thread(() -> {
+            await(startSignal);
+            while (writersLeft.get() > 0) {
+                List<SessionStateStore.ShardSnapshot> snapshot = store.snapshotShards();
+                if (captured.size() < MAX_CAPTURED_SNAPSHOTS) {
+                    captured.add(snapshot);
+                }
+            }
+        });
+
+        writers.forEach(Thread::start);
+        reader.start();
+        startSignal.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        reader.join();
+
+        assertEquals(0, recorder.outOfOrder.get(), "listener saw a previous value that was not the last write");
+        assertEquals((long) WRITERS * WRITES_PER_WRITER, store.getVersion());
+        assertEquals(SESSION_IDS, store.size());
+        for (Map.Entry<String, SessionSnapshot> last : recorder.lastSeen.entrySet()) {
+            assertEquals(last.getValue(), store.get(last.getKey()).orElse(null),
+                    "final value is not the last write for " + last.getKey());
+        }
+
+        assertTrue(captured.size() > 0, "reader captured no snapshots");
+        for (List<SessionStateStore.ShardSnapshot> snapshot : captured) {
+            for (int shard = 0; shard < SHARDS; shard++) {
+                SessionStateStore.ShardSnapshot copy = snapshot.get(shard);
+                assertEquals(recorder.replay(shard, copy.version), toMap(copy.sessions),
+                        "shard " + shard + " copy does not match version " + copy.version);
+            }
+        }
+    }
+
+    private static Map<String, SessionSnapshot> toMap(List<SessionSnapshot> sessions) {
+        Map<String, SessionSnapshot> map = new HashMap<>();
+        for (SessionSnapshot session : sessions) {
+            map.put(session.getId(), session);
+        }
+        return map;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Logs every change per shard; runs under the shard write lock, so each log has one writer at a time
+     */
+    private static final class ChangeRecorder implements SessionChangeListener {
+        private final SessionStateStore store;
+        private final List<List<SessionSnapshot>> changes = new ArrayList<>();
+        private final Map<String, SessionSnapshot> lastSeen = new ConcurrentHashMap<>();
+        private final AtomicInteger outOfOrder = new AtomicInteger();
+
+        private ChangeRecorder(SessionStateStore store, int shards) {
+            this.store = store;
+            for (int i = 0; i < shards; i++) {
+                changes.add(new ArrayList<>());
+            }
+        }
+
+        @Override
+        public void onSessionChanged(SessionSnapshot previous, SessionSnapshot current) {
+            if (!Objects.equals(previous, lastSeen.get(current.getId()))) {
+                outOfOrder.incrementAndGet();
+            }
+            lastSeen.put(current.getId(), current);
+            changes.get(store.shardIndex(current.getId())).add(current);
+        }
+
+        /**
+         * Shard contents after its first {@code version} changes
+         */
+        private Map<String, SessionSnapshot> replay(int shard, long version) {
+            Map<String, SessionSnapshot> state = new HashMap<>();
+            for (SessionSnapshot change : changes.get(shard).subList(0, (int) version)) {
+                state.put(change.getId(), change);
+            }
+            return state;
+        }
+    }
+}
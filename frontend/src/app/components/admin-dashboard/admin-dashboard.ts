@@ -13,7 +13,7 @@ import { MatSnackBarModule, MatSnackBar } from '@angular/material/snack-bar';
 import { MatTooltipModule } from '@angular/material/tooltip';
 import { FormsModule } from '@angular/forms';
 import { ApiService } from '../../services/api';
-import { PurchaseSession } from '../../models/purchase.model';
+import { CustomerSummary, PurchaseSession, TimeSeriesPoint } from '../../models/purchase.model';
 
 @Component({
   selector: 'app-admin-dashboard',
@@ -42,8 +42,17 @@ export class AdminDashboardComponent implements OnInit {
   displayedColumns: string[] = ['date', 'customer', 'amount', 'status', 'paymentStatus', 'actions'];
   startDate: Date | null = null;
   endDate: Date | null = null;
+  readonly statsDays = 30;
+  readonly currency = 'usd';
+  dailyStats: TimeSeriesPoint[] = [];
+  maxDailyRevenue: number = 0;
   totalRevenue: number = 0;
   totalSessions: number = 0;
+  totalPaid: number = 0;
+  topCustomers: CustomerSummary[] = [];
+  topCustomerColumns: string[] = ['customer', 'spend', 'paidSessions', 'lastPurchase', 'tier'];
+  lookupEmail: string = '';
+  customerSummary: CustomerSummary | null = null;
 
   constructor(
     private apiService: ApiService,
@@ -51,7 +60,13 @@ export class AdminDashboardComponent implements OnInit {
   ) {}
 
   ngOnInit(): void {
+    this.refresh();
+  }
+
+  refresh(): void {
     this.loadAllSessions();
+    this.loadStats();
+    this.loadTopCustomers();
   }
 
   loadAllSessions(): void {
@@ -59,7 +74,6 @@ export class AdminDashboardComponent implements OnInit {
     this.apiService.getAllSessions().subscribe({
       next: (sessions) => {
         this.sessions = sessions;
-        this.calculateStats();
         this.loading = false;
       },
       error: (error) => {
@@ -85,7 +99,6 @@ export class AdminDashboardComponent implements OnInit {
       this.apiService.getSessionsByDateRange(startStr, endStr).subscribe({
         next: (sessions) => {
           this.sessions = sessions;
-          this.calculateStats();
           this.loading = false;
         },
         error: (error) => {
@@ -113,11 +126,72 @@ export class AdminDashboardComponent implements OnInit {
     this.loadAllSessions();
   }
 
-  calculateStats(): void {
-    this.totalSessions = this.sessions.length;
-    this.totalRevenue = this.sessions
-      .filter(session => session.paymentStatus === 'paid')
-      .reduce((total, session) => total + session.amountTotal, 0);
+  /**
+   * Load the daily rollups the stats and revenue chart are drawn from
+   */
+  loadStats(): void {
+    this.apiService.getTimeSeries('day', this.statsDays, this.currency).subscribe({
+      next: (points) => {
+        this.dailyStats = points;
+        this.totalSessions = points.reduce((total, point) => total + point.opened, 0);
+        this.totalPaid = points.reduce((total, point) => total + point.paid, 0);
+        this.totalRevenue = points.reduce((total, point) => total + point.revenue, 0);
+        this.maxDailyRevenue = Math.max(0, ...points.map(point => point.revenue));
+      },
+      error: (error) => {
+        console.error('Error loading stats:', error);
+        this.snackBar.open('Error loading stats. Please try again.', 'Close', {
+          duration: 5000,
+          horizontalPosition: 'center',
+          verticalPosition: 'top'
+        });
+      }
+    });
+  }
+
+  loadTopCustomers(): void {
+    this.apiService.getTopCustomers(this.currency, 10).subscribe({
+      next: (customers) => {
+        this.topCustomers = customers;
+      },
+      error: (error) => {
+        console.error('Error loading top customers:', error);
+      }
+    });
+  }
+
+  lookupCustomer(): void {
+    const email = this.lookupEmail.trim();
+    if (!email) {
+      return;
+    }
+
+    this.apiService.getCustomerSummary(email).subscribe({
+      next: (summary) => {
+        this.customerSummary = summary;
+      },
+      error: (error) => {
+        console.error('Error loading customer summary:', error);
+        this.customerSummary = null;
+        this.snackBar.open(`No purchase summary found for ${email}`, 'Close', {
+          duration: 3000,
+          horizontalPosition: 'center',
+          verticalPosition: 'top'
+        });
+      }
+    });
+  }
+
+  get conversionRate(): number {
+    return this.totalSessions > 0 ? this.totalPaid / this.totalSessions : 0;
+  }
+
+  get averageOrderValue(): number {
+    return this.totalPaid > 0 ? this.totalRevenue / this.totalPaid : 0;
+  }
+
+  barHeight(point: TimeSeriesPoint): number {
+    return this.maxDailyRevenue > 0 ? (point.revenue / this.maxDailyRevenue) * 100 : 0;
   }
 
   formatDate(timestamp: number): string {
@@ -16,6 +16,25 @@ export interface PurchaseStats {
   averageOrderValue: number;
 }
 
+export interface CustomerSummary {
+  email: string;
+  lifetimeSpend: { [currency: string]: number }; // Minor units per currency
+  sessionCount: number;
+  paidSessionCount: number;
+  lastPurchase: number | null;
+  currentTier: string | null;
+}
+
+export type TimeSeriesGranularity = 'minute' | 'hour' | 'day';
+
+export interface TimeSeriesPoint {
+  start: number;
+  opened: number;
+  paid: number;
+  revenue: number;
+  conversionRate: number;
+}
+
 export interface DateRangeFilter {
   start: string;
   end: string;
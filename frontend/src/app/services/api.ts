@@ -1,15 +1,17 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { HttpClient, HttpErrorResponse } from '@angular/common/http';
+import { Observable, retry, throwError, timer } from 'rxjs';
 import { Product } from '../models/product.model';
 import { CheckoutRequest, CheckoutResponse } from '../models/checkout.model';
-import { PurchaseSession, PurchaseStats } from '../models/purchase.model';
+import { CustomerSummary, PurchaseSession, PurchaseStats, TimeSeriesGranularity, TimeSeriesPoint } from '../models/purchase.model';
 
 @Injectable({
   providedIn: 'root'
 })
 export class ApiService {
   private readonly baseUrl = 'http://localhost:8080/api';
+  private readonly busyRetries = 2;
+  private readonly maxRetryAfterSeconds = 10;
 
   constructor(private http: HttpClient) { }
 
@@ -17,14 +19,14 @@ export class ApiService {
    * Get all available products/pricing tiers
    */
   getProducts(): Observable<Product[]> {
-    return this.http.get<Product[]>(`${this.baseUrl}/products`);
+    return this.retryWhenBusy(this.http.get<Product[]>(`${this.baseUrl}/products`));
   }
 
   /**
    * Get specific product by ID
    */
   getProduct(productId: string): Observable<Product> {
-    return this.http.get<Product>(`${this.baseUrl}/products/${productId}`);
+    return this.retryWhenBusy(this.http.get<Product>(`${this.baseUrl}/products/${productId}`));
   }
 
 
@@ -32,34 +34,74 @@ export class ApiService {
    * Create a Stripe Checkout session
    */
   createCheckoutSession(checkoutRequest: CheckoutRequest): Observable<CheckoutResponse> {
-    return this.http.post<CheckoutResponse>(`${this.baseUrl}/create-checkout-session`, checkoutRequest);
+    return this.retryWhenBusy(this.http.post<CheckoutResponse>(`${this.baseUrl}/create-checkout-session`, checkoutRequest));
   }
 
   /**
    * Get checkout session details
    */
   getCheckoutSession(sessionId: string): Observable<any> {
-    return this.http.get<any>(`${this.baseUrl}/checkout-session/${sessionId}`);
+    return this.retryWhenBusy(this.http.get<any>(`${this.baseUrl}/checkout-session/${sessionId}`));
   }
 
   /**
    * Get all purchase sessions (admin)
    */
   getAllSessions(): Observable<PurchaseSession[]> {
-    return this.http.get<PurchaseSession[]>(`${this.baseUrl}/purchases/sessions`);
+    return this.retryWhenBusy(this.http.get<PurchaseSession[]>(`${this.baseUrl}/purchases/sessions`));
   }
 
   /**
    * Get sessions by customer email
    */
   getSessionsByCustomer(email: string): Observable<PurchaseSession[]> {
-    return this.http.get<PurchaseSession[]>(`${this.baseUrl}/purchases/sessions/customer/${email}`);
+    return this.retryWhenBusy(this.http.get<PurchaseSession[]>(`${this.baseUrl}/purchases/sessions/customer/${email}`));
   }
 
   /**
    * Get sessions by date range (admin)
    */
   getSessionsByDateRange(start: string, end: string): Observable<PurchaseSession[]> {
-    return this.http.get<PurchaseSession[]>(`${this.baseUrl}/purchases/sessions/date-range?start=${start}&end=${end}`);
+    return this.retryWhenBusy(this.http.get<PurchaseSession[]>(`${this.baseUrl}/purchases/sessions/date-range?start=${start}&end=${end}`));
+  }
+
+  /**
+   * Get a customer's purchase summary
+   */
+  getCustomerSummary(email: string): Observable<CustomerSummary> {
+    return this.retryWhenBusy(this.http.get<CustomerSummary>(`${this.baseUrl}/purchases/customers/${email}/summary`));
+  }
+
+  /**
+   * Get the top customers by lifetime spend (admin)
+   */
+  getTopCustomers(currency: string = 'usd', limit: number = 10): Observable<CustomerSummary[]> {
+    return this.retryWhenBusy(this.http.get<CustomerSummary[]>(`${this.baseUrl}/purchases/customers/top?currency=${currency}&limit=${limit}`));
+  }
+
+  /**
+   * Get revenue and conversion time series (admin)
+   */
+  getTimeSeries(granularity: TimeSeriesGranularity, points: number = 60, currency: string = 'usd'): Observable<TimeSeriesPoint[]> {
+    return this.retryWhenBusy(this.http.get<TimeSeriesPoint[]>(`${this.baseUrl}/purchases/timeseries?granularity=${granularity}&points=${points}&currency=${currency}`));
+  }
+
+  /**
+   * Retry requests the backend shed with a 503, waiting as long as its Retry-After asks
+   */
+  private retryWhenBusy<T>(request: Observable<T>): Observable<T> {
+    return request.pipe(
+      retry({
+        count: this.busyRetries,
+        delay: (error) => {
+          if (!(error instanceof HttpErrorResponse) || error.status !== 503) {
+            return throwError(() => error);
+          }
+          const retryAfter = Number(error.headers.get('Retry-After'));
+          const seconds = retryAfter > 0 ? Math.min(retryAfter, this.maxRetryAfterSeconds) : 1;
+          return timer(seconds * 1000);
+        }
+      })
+    );
   }
 }